@@ -0,0 +1,40 @@
+package ch.uzh.ifi.hase.soprafs24.constant;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and printing of the short card strings that games store ("AS", "TD", ...).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CardBenchmark {
+
+    private String[] shortStrings;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        shortStrings = new String[52];
+        int i = 0;
+        for (Card.Suit suit : Card.Suit.values()) {
+            for (Card.Rank rank : Card.Rank.values()) {
+                shortStrings[i++] = Card.of(rank, suit).toShortString();
+            }
+        }
+    }
+
+    @Benchmark
+    public Card fromShortString() {
+        next = next == 51 ? 0 : next + 1;
+        return Card.fromShortString(shortStrings[next]);
+    }
+
+    @Benchmark
+    public String roundTrip() {
+        next = next == 51 ? 0 : next + 1;
+        return Card.fromShortString(shortStrings[next]).toShortString();
+    }
+}
@@ -0,0 +1,56 @@
+package ch.uzh.ifi.hase.soprafs24.helpers;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Card;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hand evaluation on random 7-card hands, through the Card list API and on raw bitmasks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HandEvaluatorBenchmark {
+
+    private static final int HANDS = 1024;
+
+    private List<List<Card>> hands;
+    private long[] masks;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        hands = new ArrayList<>(HANDS);
+        masks = new long[HANDS];
+        for (int i = 0; i < HANDS; i++) {
+            long mask = 0L;
+            while (Long.bitCount(mask) < 7) {
+                mask |= 1L << random.nextInt(52);
+            }
+            List<Card> hand = new ArrayList<>(7);
+            for (long rest = mask; rest != 0; rest &= rest - 1) {
+                int code = Long.numberOfTrailingZeros(rest);
+                hand.add(Card.of(code));
+            }
+            hands.add(hand);
+            masks[i] = mask;
+        }
+    }
+
+    @Benchmark
+    public OddsCalculator.HandValue evaluateHand() {
+        next = (next + 1) & (HANDS - 1);
+        return OddsCalculator.evaluateHand(hands.get(next));
+    }
+
+    @Benchmark
+    public int evaluateMask() {
+        next = (next + 1) & (HANDS - 1);
+        return HandEvaluator.evaluate(masks[next]);
+    }
+}
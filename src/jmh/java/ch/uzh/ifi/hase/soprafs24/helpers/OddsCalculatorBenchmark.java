@@ -0,0 +1,40 @@
+package ch.uzh.ifi.hase.soprafs24.helpers;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monte Carlo odds for a fixed hand at several opponent counts and board sizes.
+ * Board sizes that fall under the enumeration threshold measure the exact enumeration instead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OddsCalculatorBenchmark {
+
+    private static final String[] HAND = {"AH", "KH"};
+    private static final String[] FULL_BOARD = {"QH", "7D", "2C", "JS", "5H"};
+
+    @Param({"1", "3", "6"})
+    public int opponents;
+
+    @Param({"0", "3", "4"})
+    public int boardSize;
+
+    @Param({"10000"})
+    public int iterations;
+
+    private String[] board;
+
+    @Setup
+    public void setUp() {
+        board = Arrays.copyOf(FULL_BOARD, boardSize);
+    }
+
+    @Benchmark
+    public double calculateOddsRaw() {
+        return OddsCalculator.calculateOddsRaw(HAND, board, opponents, iterations);
+    }
+}
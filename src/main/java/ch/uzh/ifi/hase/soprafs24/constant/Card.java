@@ -1,8 +1,13 @@
 package ch.uzh.ifi.hase.soprafs24.constant;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
-public class Card implements Serializable {
+/**
+ * A playing card. There are exactly 52 instances, one per card, so cards can be compared with
+ * {@code ==}; get them through {@link #of(Rank, Suit)}, {@link #of(int)} or {@link #fromShortString(String)}.
+ */
+public final class Card implements Serializable {
     public enum Suit {
         HEARTS, DIAMONDS, CLUBS, SPADES
     }
@@ -22,12 +27,56 @@ public class Card implements Serializable {
         }
     }
     
+    // The 52 cards, indexed by code; no other instances exist
+    private static final Card[] CARDS = new Card[52];
+
+    // Parse tables indexed by character: rank ordinal / suit ordinal, -1 if the character is invalid
+    private static final byte[] RANK_BY_CHAR = new byte[256];
+    private static final byte[] SUIT_BY_CHAR = new byte[256];
+
+    static {
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                CARDS[suit.ordinal() * 13 + rank.ordinal()] = new Card(suit, rank);
+            }
+        }
+
+        Arrays.fill(RANK_BY_CHAR, (byte) -1);
+        Arrays.fill(SUIT_BY_CHAR, (byte) -1);
+        String rankChars = "23456789TJQKA";
+        for (int i = 0; i < rankChars.length(); i++) {
+            RANK_BY_CHAR[rankChars.charAt(i)] = (byte) i;
+        }
+        String suitChars = "HDCS";
+        for (int i = 0; i < suitChars.length(); i++) {
+            SUIT_BY_CHAR[suitChars.charAt(i)] = (byte) i;
+        }
+    }
+
     private final Suit suit;
     private final Rank rank;
+    private final int code;
+    private final String shortString;
     
-    public Card(Suit suit, Rank rank) {
+    private Card(Suit suit, Rank rank) {
         this.suit = suit;
         this.rank = rank;
+        this.code = suit.ordinal() * 13 + rank.ordinal();
+        this.shortString = shortRank(rank) + suitChar(suit);
+    }
+
+    /**
+     * Returns the card with the given code (0-51).
+     */
+    public static Card of(int code) {
+        if (code < 0 || code >= CARDS.length) {
+            throw new IllegalArgumentException("Invalid card code: " + code);
+        }
+        return CARDS[code];
+    }
+
+    public static Card of(Rank rank, Suit suit) {
+        return CARDS[suit.ordinal() * 13 + rank.ordinal()];
     }
     
     public Suit getSuit() {
@@ -37,7 +86,30 @@ public class Card implements Serializable {
     public Rank getRank() {
         return rank;
     }
-    
+
+    /**
+     * Packed card code in the range 0-51 (suit ordinal * 13 + rank ordinal),
+     * used by the hand evaluator and the odds simulation.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Card && ((Card) o).code == code);
+    }
+
+    @Override
+    public int hashCode() {
+        return code;
+    }
+
+    // Deserialization must not create a 53rd card
+    private Object readResolve() {
+        return CARDS[code];
+    }
+
     @Override
     public String toString() {
         return rank.name() + " of " + suit.name();
@@ -45,26 +117,28 @@ public class Card implements Serializable {
     
     // Returns a short representation like "AS" for Ace of Spades
     public String toShortString() {
-        String rankSymbol;
+        return shortString;
+    }
+
+    private static String shortRank(Rank rank) {
         switch (rank) {
-            case ACE: rankSymbol = "A"; break;
-            case KING: rankSymbol = "K"; break;
-            case QUEEN: rankSymbol = "Q"; break;
-            case JACK: rankSymbol = "J"; break;
-            case TEN: rankSymbol = "T"; break;
-            default: rankSymbol = String.valueOf(rank.getValue());
+            case ACE: return "A";
+            case KING: return "K";
+            case QUEEN: return "Q";
+            case JACK: return "J";
+            case TEN: return "T";
+            default: return String.valueOf(rank.getValue());
         }
-        
-        String suitSymbol;
+    }
+
+    private static char suitChar(Suit suit) {
         switch (suit) {
-            case HEARTS: suitSymbol = "H"; break;
-            case DIAMONDS: suitSymbol = "D"; break;
-            case CLUBS: suitSymbol = "C"; break;
-            case SPADES: suitSymbol = "S"; break;
-            default: suitSymbol = "";
+            case HEARTS: return 'H';
+            case DIAMONDS: return 'D';
+            case CLUBS: return 'C';
+            case SPADES: return 'S';
+            default: return ' ';
         }
-        
-        return rankSymbol + suitSymbol;
     }
     
     // Parse a card from a short string representation
@@ -76,48 +150,25 @@ public class Card implements Serializable {
         char rankChar = cardStr.charAt(0);
         char suitChar = cardStr.charAt(cardStr.length() - 1);
         
-        Rank rank;
-        switch (rankChar) {
-            case 'A': rank = Rank.ACE; break;
-            case 'K': rank = Rank.KING; break;
-            case 'Q': rank = Rank.QUEEN; break;
-            case 'J': rank = Rank.JACK; break;
-            case 'T': rank = Rank.TEN; break;
-            case '1': // 10 is a special case with two chars
-                if (cardStr.length() < 3 || cardStr.charAt(1) != '0') {
-                    throw new IllegalArgumentException("Invalid rank: " + rankChar);
-                }
-                rank = Rank.TEN;
-                break;
-            default:
-                int rankValue = Character.getNumericValue(rankChar);
-                if (rankValue >= 2 && rankValue <= 9) {
-                    rank = Rank.values()[rankValue - 2]; // Offset because enum starts with TWO
-                } else {
-                    throw new IllegalArgumentException("Invalid rank: " + rankChar);
-                }
+        int rank = rankChar < 256 ? RANK_BY_CHAR[rankChar] : -1;
+        if (rank < 0) {
+            // 10 is a special case with two chars
+            if (rankChar != '1' || cardStr.length() < 3 || cardStr.charAt(1) != '0') {
+                throw new IllegalArgumentException("Invalid rank: " + rankChar);
+            }
+            rank = Rank.TEN.ordinal();
         }
         
-        Suit suit;
-        switch (suitChar) {
-            case 'H': suit = Suit.HEARTS; break;
-            case 'D': suit = Suit.DIAMONDS; break;
-            case 'C': suit = Suit.CLUBS; break;
-            case 'S': suit = Suit.SPADES; break;
-            default: throw new IllegalArgumentException("Invalid suit: " + suitChar);
+        int suit = suitChar < 256 ? SUIT_BY_CHAR[suitChar] : -1;
+        if (suit < 0) {
+            throw new IllegalArgumentException("Invalid suit: " + suitChar);
         }
         
-        return new Card(suit, rank);
+        return CARDS[suit * 13 + rank];
     }
     
     public char getSuitChar() {
-        switch (suit) {
-            case HEARTS: return 'H';
-            case DIAMONDS: return 'D';
-            case CLUBS: return 'C';
-            case SPADES: return 'S';
-            default: return ' ';
-        }
+        return suitChar(suit);
     }
     
     public static int suitToIndex(char suit) {
@@ -0,0 +1,174 @@
+package ch.uzh.ifi.hase.soprafs24.constant;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Immutable set of cards backed by a single long: bit {@link Card#getCode()} is set for every card
+ * in the set. Every suit owns a 13-bit block, so the ranks held in one suit are a shift and a mask
+ * away, and set operations (union, intersection, removal, "deck minus known cards") are one
+ * bitwise instruction each.
+ *
+ * The hot loops of the odds simulation work on the raw {@link #bits()} to stay allocation-free.
+ */
+public final class CardSet implements Iterable<Card>, Serializable {
+
+    private static final long ALL_BITS = (1L << 52) - 1;
+    private static final int RANK_MASK = 0x1FFF;
+
+    public static final CardSet EMPTY = new CardSet(0L);
+    public static final CardSet FULL_DECK = new CardSet(ALL_BITS);
+
+    private final long bits;
+
+    private CardSet(long bits) {
+        this.bits = bits;
+    }
+
+    public static CardSet ofBits(long bits) {
+        if ((bits & ~ALL_BITS) != 0) {
+            throw new IllegalArgumentException("Invalid card bits: " + Long.toHexString(bits));
+        }
+        return new CardSet(bits);
+    }
+
+    public static CardSet of(Card... cards) {
+        return of(Arrays.asList(cards));
+    }
+
+    public static CardSet of(Collection<Card> cards) {
+        long bits = 0L;
+        for (Card card : cards) {
+            bits |= 1L << card.getCode();
+        }
+        return new CardSet(bits);
+    }
+
+    /**
+     * Parses short card strings like "AS" (see {@link Card#fromShortString(String)}).
+     */
+    public static CardSet fromShortStrings(Collection<String> cards) {
+        long bits = 0L;
+        for (String card : cards) {
+            bits |= 1L << Card.fromShortString(card).getCode();
+        }
+        return new CardSet(bits);
+    }
+
+    public long bits() {
+        return bits;
+    }
+
+    public int size() {
+        return Long.bitCount(bits);
+    }
+
+    public boolean isEmpty() {
+        return bits == 0L;
+    }
+
+    public boolean contains(Card card) {
+        return (bits & (1L << card.getCode())) != 0;
+    }
+
+    public boolean containsAny(CardSet other) {
+        return (bits & other.bits) != 0;
+    }
+
+    public CardSet with(Card card) {
+        return new CardSet(bits | (1L << card.getCode()));
+    }
+
+    public CardSet without(Card card) {
+        return new CardSet(bits & ~(1L << card.getCode()));
+    }
+
+    public CardSet union(CardSet other) {
+        return new CardSet(bits | other.bits);
+    }
+
+    public CardSet intersect(CardSet other) {
+        return new CardSet(bits & other.bits);
+    }
+
+    public CardSet remove(CardSet other) {
+        return new CardSet(bits & ~other.bits);
+    }
+
+    /**
+     * All cards of a full deck that are not in this set.
+     */
+    public CardSet complement() {
+        return new CardSet(ALL_BITS & ~bits);
+    }
+
+    /**
+     * The ranks held in one suit as a 13-bit mask, bit {@link Card.Rank#ordinal()} per rank.
+     */
+    public int rankMask(Card.Suit suit) {
+        return rankMask(bits, suit.ordinal());
+    }
+
+    /**
+     * The ranks held in any suit as a 13-bit mask.
+     */
+    public int rankMask() {
+        return rankMask(bits, 0) | rankMask(bits, 1) | rankMask(bits, 2) | rankMask(bits, 3);
+    }
+
+    public static int rankMask(long bits, int suit) {
+        return (int) (bits >>> (13 * suit)) & RANK_MASK;
+    }
+
+    /**
+     * The cards in code order (by suit, then by rank).
+     */
+    public List<Card> toList() {
+        List<Card> cards = new ArrayList<>(size());
+        for (Card card : this) {
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    @Override
+    public Iterator<Card> iterator() {
+        return new Iterator<Card>() {
+            private long rest = bits;
+
+            @Override
+            public boolean hasNext() {
+                return rest != 0L;
+            }
+
+            @Override
+            public Card next() {
+                if (rest == 0L) {
+                    throw new NoSuchElementException();
+                }
+                Card card = Card.of(Long.numberOfTrailingZeros(rest));
+                rest &= rest - 1;
+                return card;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof CardSet && ((CardSet) o).bits == bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bits);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(" ", "[", "]");
+        for (Card card : this) {
+            joiner.add(card.toShortString());
+        }
+        return joiner.toString();
+    }
+}
@@ -1,70 +1,103 @@
 package ch.uzh.ifi.hase.soprafs24.constant;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * A deck of cards stored as card codes (see {@link Card#getCode()}) in a byte array.
+ * The cards from the cursor to the end are still in the deck, the card at the cursor is the top one,
+ * so drawing only moves the cursor.
+ */
 public class Deck implements Serializable {
-    private List<Card> cards;
-    
+
+    private static final int STANDARD_SIZE = 52;
+
+    private byte[] cards;
+    private int cursor;
+    private int size;
+
     /**
      * Creates a new deck with all 52 cards in order.
      */
     public Deck() {
-        this.cards = new ArrayList<>();
+        this.cards = new byte[STANDARD_SIZE];
         initializeStandardDeck();
     }
-    
+
+    private Deck(byte[] cards, int size) {
+        this.cards = cards;
+        this.size = size;
+    }
+
     /**
      * Initializes a standard 52-card deck.
      */
     private void initializeStandardDeck() {
-        this.cards.clear();
-        for (Card.Suit suit : Card.Suit.values()) {
-            for (Card.Rank rank : Card.Rank.values()) {
-                cards.add(new Card(suit, rank));
-            }
+        if (cards.length < STANDARD_SIZE) {
+            cards = new byte[STANDARD_SIZE];
+        }
+        for (int code = 0; code < STANDARD_SIZE; code++) {
+            cards[code] = (byte) code;
         }
+        cursor = 0;
+        size = STANDARD_SIZE;
     }
-    
+
     /**
-     * Shuffles the deck.
+     * Shuffles the cards remaining in the deck in place (Fisher-Yates).
      */
     public void shuffle() {
-        Collections.shuffle(cards);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = size - 1; i > cursor; i--) {
+            int j = cursor + random.nextInt(i - cursor + 1);
+            byte temp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = temp;
+        }
     }
-    
+
     /**
      * Draws a card from the top of the deck.
      * @return the drawn card
      * @throws IllegalStateException if the deck is empty
      */
     public Card drawCard() {
-        if (cards.isEmpty()) {
+        return Card.of(drawCode());
+    }
+
+    /**
+     * Draws the code of the top card of the deck.
+     * @return the code of the drawn card
+     * @throws IllegalStateException if the deck is empty
+     */
+    public int drawCode() {
+        if (cursor == size) {
             throw new IllegalStateException("Cannot draw from an empty deck");
         }
-        return cards.remove(0);
+        return cards[cursor++];
     }
-    
+
     /**
      * Returns the number of cards remaining in the deck.
      * @return the number of cards
      */
     public int remainingCards() {
-        return cards.size();
+        return size - cursor;
     }
-    
+
     /**
      * Checks if the deck is empty.
      * @return true if the deck is empty, false otherwise
      */
     public boolean isEmpty() {
-        return cards.isEmpty();
+        return cursor == size;
     }
-    
+
     /**
      * Resets the deck to a full 52-card deck and shuffles it.
      */
@@ -72,79 +105,139 @@ public class Deck implements Serializable {
         initializeStandardDeck();
         shuffle();
     }
-    
+
+    /**
+     * Returns an independent copy of the cards remaining in this deck.
+     * @return the copy
+     */
+    public Deck copy() {
+        return new Deck(Arrays.copyOfRange(cards, cursor, Math.max(size, cursor + STANDARD_SIZE)), size - cursor);
+    }
+
     /**
      * Converts the deck to a list of string representations.
      * Useful for persistence.
      * @return list of card strings
      */
     public List<String> toStringList() {
-        return cards.stream()
-                .map(Card::toShortString)
-                .collect(Collectors.toList());
+        List<String> strings = new ArrayList<>(size - cursor);
+        for (int i = cursor; i < size; i++) {
+            strings.add(Card.of(cards[i]).toShortString());
+        }
+        return strings;
     }
-    
+
     /**
      * Creates a deck from a list of card string representations.
      * @param cardStrings list of card strings
      * @return a new deck with the specified cards
      */
     public static Deck fromStringList(List<String> cardStrings) {
-        Deck deck = new Deck();
-        deck.cards.clear();
-        
+        byte[] codes = new byte[Math.max(STANDARD_SIZE, cardStrings.size())];
+        int size = 0;
         for (String cardStr : cardStrings) {
-            deck.cards.add(Card.fromShortString(cardStr));
+            codes[size++] = (byte) Card.fromShortString(cardStr).getCode();
         }
-        
-        return deck;
+        return new Deck(codes, size);
     }
-    
+
     /**
-     * Returns all cards currently in the deck.
-     * @return an unmodifiable view of the cards in the deck
+     * Creates a deck from card codes, top card first.
+     * @param codes the card codes (see {@link Card#getCode()})
+     * @return a new deck with the specified cards
+     */
+    public static Deck fromCodes(byte[] codes) {
+        byte[] copy = Arrays.copyOf(codes, Math.max(STANDARD_SIZE, codes.length));
+        for (int i = 0; i < codes.length; i++) {
+            Card.of(copy[i]); // validates the code
+        }
+        return new Deck(copy, codes.length);
+    }
+
+    /**
+     * Returns the codes of the cards remaining in the deck, top card first.
+     * Useful for compact persistence.
+     * @return a new array of card codes
+     */
+    public byte[] toCodes() {
+        return Arrays.copyOfRange(cards, cursor, size);
+    }
+
+    /**
+     * Returns all cards currently in the deck, top card first.
+     * @return an unmodifiable view of the cards in the deck; it is not copied and follows later draws
      */
     public List<Card> getCards() {
-        return Collections.unmodifiableList(cards);
+        return remaining();
     }
-    
+
+    /**
+     * Returns the cards remaining in the deck, top card first, as an unmodifiable view backed by the deck.
+     * @return the view
+     */
+    public List<Card> remaining() {
+        return new AbstractList<Card>() {
+            @Override
+            public Card get(int index) {
+                if (index < 0 || index >= size()) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+                }
+                return Card.of(cards[cursor + index]);
+            }
+
+            @Override
+            public int size() {
+                return remainingCards();
+            }
+        };
+    }
+
     /**
      * Add a card to the bottom of the deck.
      * @param card the card to add
      */
     public void addCard(Card card) {
-        this.cards.add(card);
+        addCard(remainingCards(), card);
     }
-    
+
     /**
      * Add a card to a specific position in the deck.
      * @param index the position to add the card
      * @param card the card to add
      */
     public void addCard(int index, Card card) {
-        this.cards.add(index, card);
+        if (index < 0 || index > remainingCards()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + remainingCards());
+        }
+        if (size == cards.length) {
+            cards = Arrays.copyOf(cards, cards.length + STANDARD_SIZE);
+        }
+        int position = cursor + index;
+        System.arraycopy(cards, position, cards, position + 1, size - position);
+        cards[position] = (byte) card.getCode();
+        size++;
     }
-    
+
     @Override
     public String toString() {
-        return "Deck with " + cards.size() + " cards";
+        return "Deck with " + remainingCards() + " cards";
     }
-    
+
     /**
      * Creates a deck excluding the specified cards.
      * @param knownCards set of cards to exclude from the deck
      * @return a list of cards excluding the known cards
      */
     public static List<Card> createDeckExcluding(Set<Card> knownCards) {
-        List<Card> deck = new ArrayList<>();
-        for (Card.Suit suit : Card.Suit.values()) {
-            for (Card.Rank rank : Card.Rank.values()) {
-                Card card = new Card(suit, rank);
-                if (!knownCards.contains(card)) {
-                    deck.add(card);
-                }
-            }
-        }
-        return deck;
+        return createDeckExcluding(CardSet.of(knownCards));
+    }
+
+    /**
+     * Creates a deck excluding the specified cards.
+     * @param knownCards cards to exclude from the deck
+     * @return a list of cards excluding the known cards, in suit and rank order
+     */
+    public static List<Card> createDeckExcluding(CardSet knownCards) {
+        return knownCards.complement().toList();
     }
 }
@@ -0,0 +1,8 @@
+package ch.uzh.ifi.hase.soprafs24.constant;
+
+public enum GameEventType {
+    // A player's accepted action
+    ACTION,
+    // Community cards dealt when a betting round was complete
+    DEAL
+}
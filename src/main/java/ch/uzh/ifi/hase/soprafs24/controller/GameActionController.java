@@ -8,6 +8,8 @@ import ch.uzh.ifi.hase.soprafs24.constant.PlayerAction;
 import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.Player;
+import ch.uzh.ifi.hase.soprafs24.helpers.OddsResult;
+import ch.uzh.ifi.hase.soprafs24.repository.GameHeader;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GameGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.PlayerActionPostDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.ProbabilityResponse;
@@ -42,15 +44,16 @@ public class GameActionController {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token");
         }
 
-        Game game = gameService.getGameById(gameId, token);
-        if (game == null) {
+        // Only the creator is checked here, the table itself is loaded once by startBettingRound
+        GameHeader header = gameService.getGameHeader(gameId, token);
+        if (header == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
         }
-        if (!user.getId().equals(game.getCreatorId())) {
+        if (!user.getId().equals(header.getCreatorId())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only the host can start the game");
         }
 
-        game = gameService.startBettingRound(gameId);
+        Game game = gameService.startBettingRound(gameId);
         GameGetDTO gameGetDTO = DTOMapper.INSTANCE.convertEntityToGameGetDTO(game);
         return gameGetDTO;
     }
@@ -129,9 +132,11 @@ public class GameActionController {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You must be a player in the game to get probability");
         }
 
-        double probability = gameService.calculateWinProbability(gameId, user.getId());
+        OddsResult odds = gameService.estimateWinProbability(gameId, user.getId());
         ProbabilityResponse response = new ProbabilityResponse();
-        response.setProbability(probability);
+        response.setProbability(odds.getProbability());
+        response.setErrorBound(odds.getErrorBound());
+        response.setIterations(odds.getIterations());
         return response;
     }
 
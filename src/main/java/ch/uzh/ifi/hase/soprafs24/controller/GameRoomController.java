@@ -3,15 +3,20 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
 import ch.uzh.ifi.hase.soprafs24.rest.mapper.DTOMapper;
 import ch.uzh.ifi.hase.soprafs24.service.GameService;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GameCreationPostDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GameGetDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.JoinGamePostDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyPageDTO;
 
 
 @RestController
@@ -59,23 +64,56 @@ public class GameRoomController {
         List<Game> allGames = gameService.getAllPublicGames(token);
         List<GameGetDTO> allGamesGetDTO = new ArrayList<>();
         for (Game game : allGames) {
-            System.out.println(game.getId());
             GameGetDTO gameGetDTO = DTOMapper.INSTANCE.convertEntityToGameGetDTO(game);
             allGamesGetDTO.add(gameGetDTO);
         }
         return allGamesGetDTO;
     }
 
-    @GetMapping("/games/{gameId}")
+    @GetMapping("/games/lobby")
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public GameGetDTO getGameById(@PathVariable("gameId") Long id, @RequestHeader("Authorization") String authenticatorToken){
+    public LobbyPageDTO getLobbyPage(@RequestHeader("Authorization") String authenticatorToken,
+                                     @RequestParam(value = "after", required = false) Long after,
+                                     @RequestParam(value = "size", defaultValue = "20") int size,
+                                     @RequestParam(value = "minSmallBlind", required = false) Integer minSmallBlind,
+                                     @RequestParam(value = "maxSmallBlind", required = false) Integer maxSmallBlind,
+                                     @RequestParam(value = "minBigBlind", required = false) Integer minBigBlind,
+                                     @RequestParam(value = "maxBigBlind", required = false) Integer maxBigBlind,
+                                     @RequestParam(value = "openSeats", required = false) Integer openSeats,
+                                     @RequestParam(value = "status", required = false) GameStatus status){
 
         String token = authenticatorToken.substring(7);
+        return gameService.getLobbyPage(token, after, size, minSmallBlind, maxSmallBlind, minBigBlind, maxBigBlind,
+                openSeats, status);
+    }
+
+    @GetMapping("/games/{gameId}")
+    @ResponseBody
+    public ResponseEntity<GameGetDTO> getGameById(@PathVariable("gameId") Long id, @RequestHeader("Authorization") String authenticatorToken,
+                                                  @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch){
+
+        String token = authenticatorToken.substring(7);
+        // The tag is taken before the game is loaded, so it is never newer than the state sent with it
+        String etag = gameService.getGameStateTag(id);
+        if (gameService.isGameStateCurrent(id, token, etag, ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
         Game foundGame = gameService.getGameById(id, token);
         GameGetDTO foundGameGetDTO = DTOMapper.INSTANCE.convertEntityToGameGetDTO(foundGame);
 
-        return foundGameGetDTO;
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        return response.body(foundGameGetDTO);
+    }
+
+    @GetMapping(value = "/games/{gameId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamGameState(@PathVariable("gameId") Long id, @RequestHeader("Authorization") String authenticatorToken){
+        String token = authenticatorToken.substring(7);
+        return gameService.subscribeToGame(id, token);
     }
 
     @PostMapping("/games/{gameId}/join")
@@ -91,6 +129,17 @@ public class GameRoomController {
         gameService.getGameById(id, token);
     }    
 
+    @PostMapping("/games/quick-seat")
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public GameGetDTO quickSeat(@RequestHeader("Authorization") String authenticatorToken,
+                                @RequestParam(value = "smallBlind", required = false) Integer smallBlind,
+                                @RequestParam(value = "bigBlind", required = false) Integer bigBlind){
+        String token = authenticatorToken.substring(7);
+        Game game = gameService.quickSeat(token, smallBlind, bigBlind);
+        return DTOMapper.INSTANCE.convertEntityToGameGetDTO(game);
+    }
+
     @DeleteMapping("/games/{gameId}")
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
@@ -0,0 +1,48 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Card;
+
+/**
+ * Stores a list of short card strings ("AS", "TD", ...) in a single column as their concatenation,
+ * two characters per card ("ASTD"), so hands and community cards are read with their owning row
+ * instead of from a collection table.
+ */
+@Converter
+public class CardListConverter implements AttributeConverter<List<String>, String> {
+
+    private static final int CARD_WIDTH = 2;
+
+    @Override
+    public String convertToDatabaseColumn(List<String> cards) {
+        if (cards == null) {
+            return null;
+        }
+        StringBuilder column = new StringBuilder(cards.size() * CARD_WIDTH);
+        for (String card : cards) {
+            // Normalizes "10H" to "TH" so every card takes exactly two characters
+            column.append(Card.fromShortString(card).toShortString());
+        }
+        return column.toString();
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String column) {
+        List<String> cards = new ArrayList<>();
+        if (column == null) {
+            return cards;
+        }
+        if (column.length() % CARD_WIDTH != 0) {
+            throw new IllegalArgumentException("Invalid card column: " + column);
+        }
+        for (int i = 0; i < column.length(); i += CARD_WIDTH) {
+            cards.add(column.substring(i, i + CARD_WIDTH));
+        }
+        return cards;
+    }
+}
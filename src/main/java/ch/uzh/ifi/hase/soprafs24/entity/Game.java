@@ -1,6 +1,7 @@
 package ch.uzh.ifi.hase.soprafs24.entity;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.persistence.*;
@@ -12,13 +13,21 @@ import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
 
 
 @Entity
-@Table(name = "GAME")
+// Lobby pages seek on this index, see GameRepository#findLobbyPage
+@Table(name = "GAME", indexes = @Index(columnList = "isPublic, id"))
+// The state of a table: the game with its players in one join, hands and community cards are columns.
+// The winners stay in their own (eager) select, Hibernate cannot join two list collections at once.
+@NamedEntityGraph(name = "Game.tableState", attributeNodes = @NamedAttributeNode("players"))
 public class Game implements Serializable {
 
     @Id
     @GeneratedValue
     private Long id;
 
+    // Incremented on every update, a write based on an older version fails instead of overwriting
+    @Version
+    private Long version;
+
     
     @Column(nullable = false)
     public Long creatorId;
@@ -61,14 +70,16 @@ public class Game implements Serializable {
     )
     private List<Player> winners = new ArrayList<>();
 
-    @Column(name = "card", nullable = false)
-    @ElementCollection
-    @CollectionTable(name = "GAME_CARD_DECK", joinColumns = @JoinColumn(name = "game_id"))
-    private List<String> cardDeck;
+    // The shuffled deck as card codes (one byte per card, see Card#getCode) and the number of cards
+    // drawn from it. Drawing a card only increments the index, so dealing is a single row update.
+    @Column(name = "deck_cards", nullable = true, length = 64)
+    private byte[] deckCards;
+
+    @Column(name = "deck_index", nullable = false)
+    private int deckIndex;
 
-    @Column(name = "card", nullable = false)
-    @ElementCollection
-    @CollectionTable(name = "GAME_COMMUNITY_CARDS", joinColumns = @JoinColumn(name = "game_id"))
+    @Column(name = "community_cards", length = 10)
+    @Convert(converter = CardListConverter.class)
     private List<String> communityCards;
 
 
@@ -90,6 +101,10 @@ public class Game implements Serializable {
     @Column(nullable = true)
     private long userTurnId;
 
+    // Sequence number of the last event of the game's event stream (GAME_EVENT) this state includes
+    @Column(nullable = false)
+    private long eventSequence;
+
     public String getPassword(){
         return password;
     }
@@ -105,6 +120,14 @@ public class Game implements Serializable {
         this.id=id;
     }
 
+    public Long getVersion(){
+        return version;
+    }
+
+    public void setVersion(Long version){
+        this.version=version;
+    }
+
     public Boolean getIsPublic(){
         return isPublic;
       }
@@ -178,11 +201,17 @@ public class Game implements Serializable {
         return gameStatus;
     }
 
+    /**
+     * Replaces the deck by the given cards, top card first
+     */
     public void setCardDeck(List<String> cardDeck){
-        this.cardDeck=cardDeck;
+        saveDeck(Deck.fromStringList(cardDeck != null ? cardDeck : new ArrayList<>()));
     }
+    /**
+     * The cards still in the deck, top card first
+     */
     public List<String> getCardDeck(){
-        return cardDeck;
+        return getDeck().toStringList();
     }
     public void setCommunityCards(List<String> communityCards){
         this.communityCards=communityCards;
@@ -212,20 +241,21 @@ public class Game implements Serializable {
     }
 
     /**
-     * Get a Deck object from the stored cardDeck strings
+     * Get a copy of the deck; drawing from it does not change the game's deck
      */
     public Deck getDeck() {
-        if (cardDeck == null) {
-            cardDeck = new ArrayList<>();
+        if (deckCards == null) {
+            return Deck.fromCodes(new byte[0]);
         }
-        return Deck.fromStringList(cardDeck);
+        return Deck.fromCodes(Arrays.copyOfRange(deckCards, deckIndex, deckCards.length));
     }
     
     /**
-     * Save a Deck object to the cardDeck strings
+     * Save a Deck object as the game's deck
      */
     public void saveDeck(Deck deck) {
-        this.cardDeck = deck.toStringList();
+        this.deckCards = deck.toCodes();
+        this.deckIndex = 0;
     }
     
     /**
@@ -255,19 +285,19 @@ public class Game implements Serializable {
      * Draw a random card from the deck
      */
     public Card drawRandomCard() {
-        Deck deck = getDeck();
-        Card card = deck.drawCard();
-        saveDeck(deck);
-        return card;
+        if (deckCards == null || deckIndex >= deckCards.length) {
+            throw new IllegalStateException("Cannot draw from an empty deck");
+        }
+        return Card.of(deckCards[deckIndex++]);
     }
 
     /**
      * Initialize a new shuffled deck
      */
     public void initializeShuffledDeck() {
-        Deck deck = new Deck();
-        deck.shuffle();
-        this.cardDeck = deck.toStringList();
+        Deck newDeck = new Deck();
+        newDeck.shuffle();
+        saveDeck(newDeck);
     }
     
     /**
@@ -437,4 +467,56 @@ public class Game implements Serializable {
     public void setCurrentPlayerId(Long currentPlayerId) {
         this.currentPlayerId = currentPlayerId;
     }
+
+    public long getEventSequence() {
+        return eventSequence;
+    }
+
+    public void setEventSequence(long eventSequence) {
+        this.eventSequence = eventSequence;
+    }
+
+    /**
+     * A copy of the game and its players that shares no mutable state with it, to hand out the state
+     * of a table that other threads keep changing. The copy is for reading, it is not meant to be saved.
+     */
+    public Game copy() {
+        Game copy = new Game();
+        copy.id = id;
+        copy.version = version;
+        copy.creatorId = creatorId;
+        copy.isPublic = isPublic;
+        copy.pot = pot;
+        copy.callAmount = callAmount;
+        copy.password = password;
+        copy.numberOfPlayers = numberOfPlayers;
+        copy.gameStatus = gameStatus;
+        copy.smallBlind = smallBlind;
+        copy.bigBlind = bigBlind;
+        copy.smallBlindIndex = smallBlindIndex;
+        copy.deckCards = deckCards != null ? deckCards.clone() : null;
+        copy.deckIndex = deckIndex;
+        copy.communityCards = communityCards != null ? new ArrayList<>(communityCards) : null;
+        copy.maximalPlayers = maximalPlayers;
+        copy.currentPlayerId = currentPlayerId;
+        copy.startCredit = startCredit;
+        copy.currentPlayerIndex = currentPlayerIndex;
+        copy.lastRaisePlayerIndex = lastRaisePlayerIndex;
+        copy.userTurnId = userTurnId;
+        copy.eventSequence = eventSequence;
+        copy.players = new ArrayList<>();
+        List<Player> seated = players != null ? players : new ArrayList<>();
+        for (Player player : seated) {
+            copy.players.add(player.copyFor(copy));
+        }
+        copy.winners = new ArrayList<>();
+        if (winners != null) {
+            for (Player winner : winners) {
+                // Winners are seated players, they have to stay the same objects in the copy
+                int seat = seated.indexOf(winner);
+                copy.winners.add(seat >= 0 ? copy.players.get(seat) : winner.copyFor(copy));
+            }
+        }
+        return copy;
+    }
 }
@@ -0,0 +1,162 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameEventType;
+import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
+import ch.uzh.ifi.hase.soprafs24.constant.PlayerAction;
+
+/**
+ * GameEvent Entity
+ * One entry of a game's append-only event stream. Events are numbered per game; a game's
+ * eventSequence is the number of the last event its state includes.
+ */
+@Entity
+@Table(name = "GAME_EVENT", uniqueConstraints = @UniqueConstraint(columnNames = {"gameId", "sequence"}))
+public class GameEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @Column(nullable = false)
+    private Long gameId;
+
+    @Column(nullable = false)
+    private long sequence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private GameEventType type;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // ACTION: the acting player, the action and the chips it moved from the player's credit to the bet
+    @Column
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private PlayerAction action;
+
+    @Column
+    private Long amount;
+
+    // ACTION: the game's call amount and last raiser after the action
+    @Column
+    private Long callAmount;
+
+    @Column
+    private Integer lastRaisePlayerIndex;
+
+    // DEAL: the dealt cards and the phase they started
+    @Column(length = 10)
+    @Convert(converter = CardListConverter.class)
+    private List<String> cards;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private GameStatus gameStatus;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(Long gameId) {
+        this.gameId = gameId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public GameEventType getType() {
+        return type;
+    }
+
+    public void setType(GameEventType type) {
+        this.type = type;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public PlayerAction getAction() {
+        return action;
+    }
+
+    public void setAction(PlayerAction action) {
+        this.action = action;
+    }
+
+    public Long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Long amount) {
+        this.amount = amount;
+    }
+
+    public Long getCallAmount() {
+        return callAmount;
+    }
+
+    public void setCallAmount(Long callAmount) {
+        this.callAmount = callAmount;
+    }
+
+    public Integer getLastRaisePlayerIndex() {
+        return lastRaisePlayerIndex;
+    }
+
+    public void setLastRaisePlayerIndex(Integer lastRaisePlayerIndex) {
+        this.lastRaisePlayerIndex = lastRaisePlayerIndex;
+    }
+
+    public List<String> getCards() {
+        return cards;
+    }
+
+    public void setCards(List<String> cards) {
+        this.cards = cards;
+    }
+
+    public GameStatus getGameStatus() {
+        return gameStatus;
+    }
+
+    public void setGameStatus(GameStatus gameStatus) {
+        this.gameStatus = gameStatus;
+    }
+}
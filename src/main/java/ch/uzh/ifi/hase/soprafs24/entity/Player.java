@@ -1,16 +1,17 @@
 package ch.uzh.ifi.hase.soprafs24.entity;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import javax.persistence.CollectionTable;
 import javax.persistence.Column;
-import javax.persistence.ElementCollection;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 import ch.uzh.ifi.hase.soprafs24.constant.PlayerAction;
 
@@ -36,15 +37,17 @@ public class Player {
     @GeneratedValue
     private Long id;
 
+    @Version
+    private Long version;
+
     @Column(nullable = false)
     private Long userId;
 
     @Column(nullable = false)
     private Long credit;
 
-    @ElementCollection
-    @CollectionTable(name = "PLAYER_HANDS", joinColumns = @JoinColumn(name = "player_id"))
-    @Column(name = "card")
+    @Column(name = "hand", length = 4)
+    @Convert(converter = CardListConverter.class)
     private List<String> hand;
 
     @ManyToOne
@@ -126,6 +129,14 @@ public class Player {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Long getTotalBets() {
         return totalBets;
     }
@@ -137,4 +148,23 @@ public class Player {
     public void addToTotalBets(Long amount) {
         this.totalBets += amount;
     }
+
+    /**
+     * A copy of this player seated at the given copy of its game, see Game#copy
+     */
+    Player copyFor(Game game) {
+        Player copy = new Player();
+        copy.id = id;
+        copy.version = version;
+        copy.userId = userId;
+        copy.credit = credit;
+        copy.hand = hand != null ? new ArrayList<>(hand) : null;
+        copy.game = game;
+        copy.currentBet = currentBet;
+        copy.hasFolded = hasFolded;
+        copy.hasActed = hasActed;
+        copy.lastAction = lastAction;
+        copy.totalBets = totalBets;
+        return copy;
+    }
 }
\ No newline at end of file
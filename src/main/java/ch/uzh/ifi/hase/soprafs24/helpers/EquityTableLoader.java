@@ -0,0 +1,44 @@
+package ch.uzh.ifi.hase.soprafs24.helpers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Maps the precomputed flop equity table at startup if one is configured.
+ * Without a table the flop is simulated like every other street.
+ */
+@Component
+public class EquityTableLoader {
+
+    private final Logger log = LoggerFactory.getLogger(EquityTableLoader.class);
+
+    @Value("${odds.flop-table:}")
+    private String flopTablePath;
+
+    @PostConstruct
+    public void init() {
+        if (flopTablePath == null || flopTablePath.trim().isEmpty()) {
+            return;
+        }
+        Path file = Paths.get(flopTablePath.trim());
+        if (!Files.isReadable(file)) {
+            log.warn("Flop equity table {} not found, flop odds will be simulated", file);
+            return;
+        }
+        try {
+            FlopEquityTable table = FlopEquityTable.open(file);
+            FlopEquityTable.install(table);
+            log.info("Mapped flop equity table {} ({} spots, {} opponents)", file, table.getEntries(), table.getOpponents());
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not map flop equity table {}, flop odds will be simulated", file, e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package ch.uzh.ifi.hase.soprafs24.helpers;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Precomputed flop equities for every canonical (hole cards, flop) pair against a fixed number
+ * of opponents.
+ *
+ * Two spots that only differ by a renaming of the suits have the same equity, so every pair is
+ * reduced to its canonical key: the smallest packed key over all 24 suit permutations. That
+ * leaves 1,286,792 keys instead of 25,989,600 raw pairs.
+ *
+ * The table is too large for the heap of every JVM, so it is memory-mapped read-only with
+ * {@link FileChannel#map}; the OS page cache then shares one copy between processes on a host.
+ * File layout (big-endian): magic, opponents, iterations, entries (ints), then the sorted
+ * canonical keys (ints) and the equities (unsigned 16-bit, equity * 65535) in key order.
+ *
+ * The file is generated offline with {@code ./gradlew generateFlopTable} and configured
+ * with {@code odds.flop-table}.
+ */
+public final class FlopEquityTable {
+
+    static final int MAGIC = 0x464C4F50; // "FLOP"
+    private static final int HEADER_BYTES = 16;
+
+    private static final double SCALE = 65535.0;
+    private static final double Z_95 = 1.96;
+
+    private static final int DEFAULT_OPPONENTS = 1;
+    private static final int DEFAULT_ITERATIONS = 20000;
+    private static final long DEFAULT_SEED = 1326L;
+
+    // All 24 ways to rename the suits, as suit -> new suit arrays
+    static final int[][] SUIT_PERMUTATIONS = suitPermutations();
+
+    // Table used by OddsCalculator, installed once at startup
+    private static volatile FlopEquityTable installed;
+
+    private final ByteBuffer buffer;
+    private final int opponents;
+    private final int iterations;
+    private final int entries;
+
+    private FlopEquityTable(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a flop equity table");
+        }
+        this.buffer = buffer;
+        this.opponents = buffer.getInt(4);
+        this.iterations = buffer.getInt(8);
+        this.entries = buffer.getInt(12);
+        if (buffer.capacity() != HEADER_BYTES + 6L * entries) {
+            throw new IllegalArgumentException("Flop equity table is truncated");
+        }
+    }
+
+    /**
+     * Memory-maps a table file. The mapping stays valid after the channel is closed.
+     */
+    public static FlopEquityTable open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new FlopEquityTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static void install(FlopEquityTable table) {
+        installed = table;
+    }
+
+    static FlopEquityTable installed() {
+        return installed;
+    }
+
+    public int getOpponents() {
+        return opponents;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * Looks up the equity of a two-card hand on a three-card board. Returns null when the spot
+     * is not a flop, the opponent count differs from the table's or the key is missing.
+     */
+    OddsResult lookup(long handMask, long boardMask, int numOpponents) {
+        if (numOpponents != opponents || Long.bitCount(handMask) != 2 || Long.bitCount(boardMask) != 3) {
+            return null;
+        }
+        int index = indexOf(canonicalKey(handMask, boardMask));
+        if (index < 0) {
+            return null;
+        }
+        double equity = buffer.getChar(HEADER_BYTES + 4 * entries + 2 * index) / SCALE;
+        // Every deal is worth between 0 and 1, so p * (1 - p) bounds the variance of the estimate
+        double errorBound = Z_95 * Math.sqrt(equity * (1.0 - equity) / iterations);
+        return new OddsResult(equity, errorBound, iterations);
+    }
+
+    private int indexOf(int key) {
+        int low = 0;
+        int high = entries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midKey = buffer.getInt(HEADER_BYTES + 4 * mid);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Canonical key of a hole card / flop pair: the smallest packed key over all suit permutations.
+     */
+    static int canonicalKey(long handMask, long flopMask) {
+        int[] hand = codes(handMask, 2);
+        int[] flop = codes(flopMask, 3);
+        int[] mappedHand = new int[2];
+        int[] mappedFlop = new int[3];
+        int best = Integer.MAX_VALUE;
+        for (int[] permutation : SUIT_PERMUTATIONS) {
+            for (int i = 0; i < 2; i++) {
+                mappedHand[i] = permute(hand[i], permutation);
+            }
+            for (int i = 0; i < 3; i++) {
+                mappedFlop[i] = permute(flop[i], permutation);
+            }
+            Arrays.sort(mappedHand);
+            Arrays.sort(mappedFlop);
+            best = Math.min(best, pack(mappedHand, mappedFlop));
+        }
+        return best;
+    }
+
+    // Six bits per card code: hole cards in bits 18-29, flop cards in bits 0-17, each ascending
+    private static int pack(int[] hand, int[] flop) {
+        return hand[0] << 24 | hand[1] << 18 | flop[0] << 12 | flop[1] << 6 | flop[2];
+    }
+
+    private static long handMaskOf(int key) {
+        return 1L << (key >>> 24 & 0x3F) | 1L << (key >>> 18 & 0x3F);
+    }
+
+    private static long flopMaskOf(int key) {
+        return 1L << (key >>> 12 & 0x3F) | 1L << (key >>> 6 & 0x3F) | 1L << (key & 0x3F);
+    }
+
+    private static int permute(int code, int[] permutation) {
+        return permutation[code / 13] * 13 + code % 13;
+    }
+
+    private static int[] codes(long mask, int count) {
+        int[] codes = new int[count];
+        for (int i = 0; i < count; i++) {
+            codes[i] = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+        }
+        return codes;
+    }
+
+    private static int[][] suitPermutations() {
+        int[][] permutations = new int[24][];
+        int n = 0;
+        for (int a = 0; a < 4; a++) {
+            for (int b = 0; b < 4; b++) {
+                for (int c = 0; c < 4; c++) {
+                    int d = 6 - a - b - c;
+                    if (a != b && a != c && b != c && d != a && d != b && d != c) {
+                        permutations[n++] = new int[]{a, b, c, d};
+                    }
+                }
+            }
+        }
+        return permutations;
+    }
+
+    /**
+     * All canonical keys in ascending order. A pair is canonical when no suit permutation
+     * gives it a smaller key; the loops visit packed keys in ascending order.
+     */
+    static int[] canonicalKeys() {
+        int[] keys = new int[1 << 21];
+        int size = 0;
+        for (int h1 = 0; h1 < 52; h1++) {
+            for (int h2 = h1 + 1; h2 < 52; h2++) {
+                long hand = 1L << h1 | 1L << h2;
+                for (int f1 = 0; f1 < 52; f1++) {
+                    for (int f2 = f1 + 1; f2 < 52; f2++) {
+                        for (int f3 = f2 + 1; f3 < 52; f3++) {
+                            long flop = 1L << f1 | 1L << f2 | 1L << f3;
+                            if ((hand & flop) != 0) {
+                                continue;
+                            }
+                            int key = h1 << 24 | h2 << 18 | f1 << 12 | f2 << 6 | f3;
+                            if (canonicalKey(hand, flop) == key) {
+                                keys[size++] = key;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * Writes a table file for the given sorted keys and their equities.
+     */
+    static void write(Path file, int opponents, int iterations, int[] keys, double[] equities) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(opponents);
+            out.writeInt(iterations);
+            out.writeInt(keys.length);
+            for (int key : keys) {
+                out.writeInt(key);
+            }
+            for (double equity : equities) {
+                out.writeChar((int) Math.round(equity * SCALE));
+            }
+        }
+    }
+
+    /**
+     * Simulates every canonical pair. Each entry gets its own split of the seeded generator,
+     * so the same arguments always produce the same file.
+     */
+    static double[] compute(int[] keys, int opponents, int iterations, long seed, ForkJoinPool pool) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        double[] equities = new double[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            equities[i] = OddsCalculator.calculateOddsParallel(handMaskOf(keys[i]), flopMaskOf(keys[i]), opponents,
+                    iterations, rng.split(), pool);
+        }
+        return equities;
+    }
+
+    /**
+     * Generates a table: {@code FlopEquityTable <output file> [opponents] [iterations] [seed]}.
+     * With the defaults this simulates 1,286,792 spots and takes a while; run it on a build machine.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: FlopEquityTable <output file> [opponents] [iterations] [seed]");
+        }
+        Path output = Paths.get(args[0]);
+        int opponents = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_OPPONENTS;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ITERATIONS;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+
+        int[] keys = canonicalKeys();
+        write(output, opponents, iterations, keys, compute(keys, opponents, iterations, seed, ForkJoinPool.commonPool()));
+    }
+}
@@ -0,0 +1,179 @@
+package ch.uzh.ifi.hase.soprafs24.helpers;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Card;
+import ch.uzh.ifi.hase.soprafs24.constant.CardSet;
+
+import java.util.List;
+
+/**
+ * Table-driven hand evaluator working on packed card codes.
+ *
+ * A card code is {@code suit * 13 + rankIndex} (see {@link Card#getCode()}), so a set of cards
+ * fits in a single long where every suit owns a 13-bit rank mask (see {@link CardSet}). All rank-mask questions
+ * (straight high card, top five ranks) are answered from 8192-entry lookup tables built once.
+ *
+ * The result is a single int strength that compares like the hand it represents:
+ * bits 20-23 hold the category (8 = straight flush ... 0 = high card) and bits 0-19 hold
+ * up to five rank values (2-14) as nibbles, most significant first.
+ */
+public final class HandEvaluator {
+
+    public static final int STRAIGHT_FLUSH = 8;
+    public static final int FOUR_OF_A_KIND = 7;
+    public static final int FULL_HOUSE = 6;
+    public static final int FLUSH = 5;
+    public static final int STRAIGHT = 4;
+    public static final int THREE_OF_A_KIND = 3;
+    public static final int TWO_PAIR = 2;
+    public static final int ONE_PAIR = 1;
+    public static final int HIGH_CARD = 0;
+
+    private static final int CATEGORY_SHIFT = 20;
+    private static final int RANK_MASK = 0x1FFF;
+
+    // Highest rank value (5-14) of a straight contained in a rank mask, 0 if there is none
+    private static final byte[] STRAIGHT_HIGH = new byte[RANK_MASK + 1];
+    // The five highest rank values of a rank mask, packed as nibbles starting at bit 16
+    private static final int[] TOP_FIVE = new int[RANK_MASK + 1];
+
+    static {
+        for (int mask = 0; mask <= RANK_MASK; mask++) {
+            int packed = 0;
+            int shift = 16;
+            for (int r = 12; r >= 0 && shift >= 0; r--) {
+                if ((mask & (1 << r)) != 0) {
+                    packed |= (r + 2) << shift;
+                    shift -= 4;
+                }
+            }
+            TOP_FIVE[mask] = packed;
+
+            int high = 0;
+            for (int r = 12; r >= 4; r--) {
+                int run = 0x1F << (r - 4);
+                if ((mask & run) == run) {
+                    high = r + 2;
+                    break;
+                }
+            }
+            // A-2-3-4-5: ace (bit 12) plus the four lowest ranks
+            if (high == 0 && (mask & 0x100F) == 0x100F) {
+                high = 5;
+            }
+            STRAIGHT_HIGH[mask] = (byte) high;
+        }
+    }
+
+    private HandEvaluator() {
+    }
+
+    /**
+     * Evaluates the first {@code count} card codes of the given array.
+     */
+    public static int evaluate(int[] codes, int count) {
+        long cards = 0L;
+        for (int i = 0; i < count; i++) {
+            cards |= 1L << codes[i];
+        }
+        return evaluate(cards);
+    }
+
+    /**
+     * Evaluates a list of cards of any size (typically two hole cards plus the board).
+     */
+    public static int evaluate(List<Card> cards) {
+        return evaluate(CardSet.of(cards).bits());
+    }
+
+    public static int evaluate(CardSet cards) {
+        return evaluate(cards.bits());
+    }
+
+    /**
+     * Evaluates a set of cards given as a bitmask of card codes (see {@link CardSet#bits()}).
+     */
+    public static int evaluate(long cards) {
+        int s0 = CardSet.rankMask(cards, 0);
+        int s1 = CardSet.rankMask(cards, 1);
+        int s2 = CardSet.rankMask(cards, 2);
+        int s3 = CardSet.rankMask(cards, 3);
+
+        int any = s0 | s1 | s2 | s3;
+        int twoPlus = (s0 & s1) | (s0 & s2) | (s0 & s3) | (s1 & s2) | (s1 & s3) | (s2 & s3);
+        int threePlus = (s0 & s1 & s2) | (s0 & s1 & s3) | (s0 & s2 & s3) | (s1 & s2 & s3);
+        int four = s0 & s1 & s2 & s3;
+
+        int flushMask = 0;
+        if (Integer.bitCount(s0) >= 5) {
+            flushMask = s0;
+        } else if (Integer.bitCount(s1) >= 5) {
+            flushMask = s1;
+        } else if (Integer.bitCount(s2) >= 5) {
+            flushMask = s2;
+        } else if (Integer.bitCount(s3) >= 5) {
+            flushMask = s3;
+        }
+
+        if (flushMask != 0 && STRAIGHT_HIGH[flushMask] != 0) {
+            return strength(STRAIGHT_FLUSH, STRAIGHT_HIGH[flushMask] << 16);
+        }
+
+        if (four != 0) {
+            int quad = highestBit(four);
+            return strength(FOUR_OF_A_KIND, (rankValue(quad) << 16) | ((TOP_FIVE[any & ~quad] >>> 4) & 0xF000));
+        }
+
+        if (threePlus != 0) {
+            int trips = highestBit(threePlus);
+            int pairs = twoPlus & ~trips;
+            if (pairs != 0) {
+                return strength(FULL_HOUSE, (rankValue(trips) << 16) | (rankValue(highestBit(pairs)) << 12));
+            }
+        }
+
+        if (flushMask != 0) {
+            return strength(FLUSH, TOP_FIVE[flushMask]);
+        }
+
+        if (STRAIGHT_HIGH[any] != 0) {
+            return strength(STRAIGHT, STRAIGHT_HIGH[any] << 16);
+        }
+
+        if (threePlus != 0) {
+            int trips = highestBit(threePlus);
+            return strength(THREE_OF_A_KIND, (rankValue(trips) << 16) | ((TOP_FIVE[any & ~trips] >>> 4) & 0xFF00));
+        }
+
+        if (twoPlus != 0) {
+            int highPair = highestBit(twoPlus);
+            int rest = twoPlus & ~highPair;
+            if (rest != 0) {
+                int lowPair = highestBit(rest);
+                int kickers = (TOP_FIVE[any & ~highPair & ~lowPair] >>> 8) & 0xF00;
+                return strength(TWO_PAIR, (rankValue(highPair) << 16) | (rankValue(lowPair) << 12) | kickers);
+            }
+            return strength(ONE_PAIR, (rankValue(highPair) << 16) | ((TOP_FIVE[any & ~highPair] >>> 4) & 0xFFF0));
+        }
+
+        return strength(HIGH_CARD, TOP_FIVE[any]);
+    }
+
+    /**
+     * Returns the hand category (0-8) encoded in a strength value.
+     */
+    public static int category(int strength) {
+        return strength >>> CATEGORY_SHIFT;
+    }
+
+    private static int strength(int category, int ranks) {
+        return (category << CATEGORY_SHIFT) | ranks;
+    }
+
+    private static int highestBit(int mask) {
+        return Integer.highestOneBit(mask);
+    }
+
+    private static int rankValue(int singleBit) {
+        return Integer.numberOfTrailingZeros(singleBit) + 2;
+    }
+}
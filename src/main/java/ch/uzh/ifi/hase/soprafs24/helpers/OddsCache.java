@@ -0,0 +1,381 @@
+package ch.uzh.ifi.hase.soprafs24.helpers;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Card;
+import ch.uzh.ifi.hase.soprafs24.constant.CardSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of win probabilities in front of the {@link OddsCalculator}.
+ *
+ * Entries are keyed by the suit-canonical (hand, board, opponents) triple, so spots that only differ
+ * by a renaming of the suits share one entry. The least recently used entry is evicted once the cache
+ * is full, and entries older than the time-to-live are evicted when they are read. The entries are
+ * split into segments by key, each with its own lock and its share of the size, so lookups of
+ * different tables rarely wait for each other.
+ *
+ * The cache also remembers the board each game last stored entries for; as soon as a game's community
+ * cards change, the entries that game created are dropped. A game is only remembered while it has
+ * entries in the cache.
+ */
+@Component
+public class OddsCache {
+
+    static final int DEFAULT_MAX_SIZE = 10000;
+    static final long DEFAULT_TTL_SECONDS = 300;
+    static final int DEFAULT_SEGMENTS = 16;
+
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final Segment[] segments;
+    // gameId -> the entries the game created on its current board
+    private final Map<Long, GameEntries> games = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public OddsCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TTL_SECONDS);
+    }
+
+    @Autowired
+    public OddsCache(@Value("${odds.cache.max-size:10000}") int maxSize,
+                     @Value("${odds.cache.ttl-seconds:300}") long ttlSeconds) {
+        this(maxSize, TimeUnit.SECONDS.toNanos(ttlSeconds), System::nanoTime, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * A single segment, the least recently used entry of the whole cache is evicted
+     */
+    OddsCache(int maxSize, long ttlNanos, LongSupplier clock) {
+        this(maxSize, ttlNanos, clock, 1);
+    }
+
+    OddsCache(int maxSize, long ttlNanos, LongSupplier clock, int segmentCount) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+        int count = Math.max(1, Math.min(segmentCount, maxSize));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maxSize / count + (i < maxSize % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Returns the cached result for the spot or computes and stores it. The computation runs outside
+     * the lock, so two requests for the same new spot may both compute it.
+     */
+    public OddsResult get(Long gameId, List<Card> hand, List<Card> board, int numOpponents,
+                          Supplier<OddsResult> compute) {
+        return get(gameId, hand, board, numOpponents, Double.POSITIVE_INFINITY, compute);
+    }
+
+    /**
+     * Like {@link #get(Long, List, List, int, Supplier)}, but a computed result is only stored if its error
+     * bound is at most {@code maxErrorBound}. A result computed on a thread that was interrupted is never
+     * stored, the computation may have stopped early.
+     */
+    public OddsResult get(Long gameId, List<Card> hand, List<Card> board, int numOpponents,
+                          double maxErrorBound, Supplier<OddsResult> compute) {
+        long handMask = OddsCalculator.toMask(hand);
+        long boardMask = OddsCalculator.toMask(board);
+        Key key = canonicalKey(handMask, boardMask, numOpponents);
+        Segment segment = segmentFor(key);
+
+        checkBoard(gameId, boardMask);
+        OddsResult cached = lookup(key, segment);
+        if (cached != null) {
+            return cached;
+        }
+        misses.increment();
+
+        OddsResult result = compute.get();
+        if (result == null || result.getErrorBound() > maxErrorBound || Thread.currentThread().isInterrupted()) {
+            return result;
+        }
+
+        GameEntries owner = gameId != null ? track(gameId, boardMask) : null;
+        synchronized (segment) {
+            Entry entry = new Entry(result, clock.getAsLong(), owner != null && owner.add(key) ? owner : null);
+            Entry replaced = segment.put(key, entry);
+            if (replaced != null && replaced.owner != entry.owner) {
+                untrack(key, replaced);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The cached result for the spot, null if there is none. Never stores anything, for computations
+     * that may be cancelled halfway; a miss is not counted.
+     */
+    public OddsResult peek(List<Card> hand, List<Card> board, int numOpponents) {
+        Key key = canonicalKey(OddsCalculator.toMask(hand), OddsCalculator.toMask(board), numOpponents);
+        return lookup(key, segmentFor(key));
+    }
+
+    private OddsResult lookup(Key key, Segment segment) {
+        synchronized (segment) {
+            Entry entry = segment.get(key);
+            if (entry != null) {
+                if (clock.getAsLong() - entry.createdAt < ttlNanos) {
+                    hits.increment();
+                    return entry.result;
+                }
+                segment.remove(key);
+                evictions.increment();
+                untrack(key, entry);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops all entries the game created, e.g. when the game is deleted.
+     */
+    public void invalidateGame(Long gameId) {
+        GameEntries game = gameId != null ? games.remove(gameId) : null;
+        if (game != null) {
+            invalidate(game);
+        }
+    }
+
+    private Segment segmentFor(Key key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[Math.floorMod(hash, segments.length)];
+    }
+
+    // The community cards changed since the game's entries were stored
+    private void checkBoard(Long gameId, long boardMask) {
+        GameEntries game = gameId != null ? games.get(gameId) : null;
+        if (game != null && game.boardMask != boardMask && games.remove(gameId, game)) {
+            invalidate(game);
+        }
+    }
+
+    private GameEntries track(Long gameId, long boardMask) {
+        GameEntries[] stale = new GameEntries[1];
+        GameEntries current = games.compute(gameId, (id, game) -> {
+            if (game != null && game.boardMask == boardMask && !game.isDropped()) {
+                return game;
+            }
+            if (game != null && game.boardMask != boardMask) {
+                stale[0] = game;
+            }
+            return new GameEntries(id, boardMask);
+        });
+        if (stale[0] != null) {
+            invalidate(stale[0]);
+        }
+        return current;
+    }
+
+    // Called under the entry's segment lock when the entry leaves the cache
+    private void untrack(Key key, Entry entry) {
+        if (entry.owner != null && entry.owner.remove(key)) {
+            // No entries left, the game is forgotten until it stores the next one
+            games.remove(entry.owner.gameId, entry.owner);
+        }
+    }
+
+    // Takes the segment locks one at a time and never while holding the game's lock
+    private void invalidate(GameEntries game) {
+        for (Key key : game.drop()) {
+            Segment segment = segmentFor(key);
+            synchronized (segment) {
+                Entry entry = segment.get(key);
+                if (entry != null && entry.owner == game) {
+                    segment.remove(key);
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Number of games that have entries in the cache
+     */
+    int gameCount() {
+        return games.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Entries removed because the cache was full or they outlived the time-to-live.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Entries removed because the community cards of their game changed or the game was deleted.
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Smallest (hand, board) mask pair over all suit permutations.
+     */
+    static Key canonicalKey(long handMask, long boardMask, int numOpponents) {
+        long bestHand = Long.MAX_VALUE;
+        long bestBoard = Long.MAX_VALUE;
+        for (int[] permutation : FlopEquityTable.SUIT_PERMUTATIONS) {
+            long hand = permute(handMask, permutation);
+            long board = permute(boardMask, permutation);
+            if (hand < bestHand || (hand == bestHand && board < bestBoard)) {
+                bestHand = hand;
+                bestBoard = board;
+            }
+        }
+        return new Key(bestHand, bestBoard, numOpponents);
+    }
+
+    // Moves every suit's 13-bit rank mask to the block of the suit it is renamed to
+    private static long permute(long mask, int[] permutation) {
+        long result = 0L;
+        for (int suit = 0; suit < 4; suit++) {
+            result |= (long) CardSet.rankMask(mask, suit) << (13 * permutation[suit]);
+        }
+        return result;
+    }
+
+    static final class Key {
+        private final long hand;
+        private final long board;
+        private final int opponents;
+
+        Key(long hand, long board, int opponents) {
+            this.hand = hand;
+            this.board = board;
+            this.opponents = opponents;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hand == other.hand && board == other.board && opponents == other.opponents;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hand, board, opponents);
+        }
+    }
+
+    private static final class Entry {
+        private final OddsResult result;
+        private final long createdAt;
+        // The game whose entries this one is dropped with, null if no game tracks it
+        private final GameEntries owner;
+
+        Entry(OddsResult result, long createdAt, GameEntries owner) {
+            this.result = result;
+            this.createdAt = createdAt;
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * The entries of one segment in access order, so the eldest entry is the least recently used one
+     */
+    private final class Segment extends LinkedHashMap<Key, Entry> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                untrack(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class GameEntries {
+        private final Long gameId;
+        private final long boardMask;
+        private final Set<Key> keys = new HashSet<>();
+        private boolean dropped;
+
+        GameEntries(Long gameId, long boardMask) {
+            this.gameId = gameId;
+            this.boardMask = boardMask;
+        }
+
+        synchronized boolean add(Key key) {
+            if (dropped) {
+                return false;
+            }
+            keys.add(key);
+            return true;
+        }
+
+        /**
+         * @return true if that was the last key, the game's entries are then dropped
+         */
+        synchronized boolean remove(Key key) {
+            keys.remove(key);
+            if (keys.isEmpty() && !dropped) {
+                dropped = true;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean isDropped() {
+            return dropped;
+        }
+
+        synchronized List<Key> drop() {
+            dropped = true;
+            List<Key> dropping = new ArrayList<>(keys);
+            keys.clear();
+            return dropping;
+        }
+    }
+}
@@ -1,39 +1,57 @@
 package ch.uzh.ifi.hase.soprafs24.helpers;
 
 import ch.uzh.ifi.hase.soprafs24.constant.Card;
-import ch.uzh.ifi.hase.soprafs24.constant.Deck;
+import ch.uzh.ifi.hase.soprafs24.constant.CardSet;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Provides a reasonably simple approximation for the Odds of winning using Monte Carlo simulation
+ * Provides a reasonably simple approximation for the Odds of winning using Monte Carlo simulation.
+ * When only few deals are left (late streets, few opponents) the odds are enumerated exactly,
+ * and preflop (optionally also flop) odds come from precomputed tables.
  */
 public class OddsCalculator {
+
+    private static final int DEFAULT_ITERATIONS = 10000;
+
+    // Adaptive sampling checks the confidence interval after every batch and never exceeds the cap
+    private static final int ADAPTIVE_BATCH = 1000;
+    static final int MAX_ADAPTIVE_ITERATIONS = 100000;
+
+    // Below this many possible deals the exact equity is computed instead of sampled
+    // (heads-up on the turn is 45,540 deals, heads-up on the river 1,035)
+    static final long ENUMERATION_THRESHOLD = 50000;
     
     // Represents the evaluated hand.
     // Categories: 8 = straight flush, 7 = four of a kind, 6 = full house, 
     // 5 = flush, 4 = straight, 3 = three of a kind, 2 = two pair, 
     // 1 = one pair, 0 = high card.
+    // This is a decoded view of a HandEvaluator strength; the simulation and showdown
+    // compare the raw int and only build a HandValue when a description is needed.
     public static class HandValue implements Comparable<HandValue> {
-        public int category;
-        public List<Integer> kickers; // Descending order
+        public final int strength;
+        public final int category;
+        public final List<Integer> kickers; // Descending order
 
-        public HandValue(int category, List<Integer> kickers) {
-            this.category = category;
-            this.kickers = kickers;
+        public HandValue(int strength) {
+            this.strength = strength;
+            this.category = HandEvaluator.category(strength);
+            this.kickers = new ArrayList<>(5);
+            for (int shift = 16; shift >= 0; shift -= 4) {
+                int rank = (strength >>> shift) & 0xF;
+                if (rank == 0) {
+                    break;
+                }
+                kickers.add(rank);
+            }
         }
         
-        // Compare first by category then by kickers.
+        // Strength values already order by category first, then by kickers.
         public int compareTo(HandValue other) {
-            if (this.category != other.category)
-                return this.category - other.category;
-            int len = Math.min(this.kickers.size(), other.kickers.size());
-            for (int i = 0; i < len; i++) {
-                int cmp = this.kickers.get(i) - other.kickers.get(i);
-                if (cmp != 0)
-                    return cmp;
-            }
-            return 0;
+            return Integer.compare(this.strength, other.strength);
         }
         
         @Override
@@ -85,286 +103,408 @@ public class OddsCalculator {
         }
     }
     
-    // Evaluates a 7-card hand (player's 2 cards + 5 board cards).
-    // Uses a simple evaluation method to detect straights, flushes, pairs, etc.
+    // Evaluates a hand of up to 7 cards (player's 2 cards + board cards).
     public static HandValue evaluateHand(List<Card> cards) {
-        int[] rankCount = new int[15]; // indices 2-14 used.
-        int[] suitCount = new int[4];   // 0:S, 1:H, 2:D, 3:C
-        
-        for (Card c : cards) {
-            rankCount[c.getRank().getValue()]++;
-            suitCount[Card.suitToIndex(c.getSuitChar())]++;
+        return new HandValue(HandEvaluator.evaluate(cards));
+    }
+    
+    /**
+     * Monte Carlo simulation to estimate winning odds.
+     * Instead of enumerating every possible outcome, we sample random deals.
+     *
+     * @param handStr      Two-card array for the player (e.g. {"AS", "KD"}).
+     * @param boardStr     0–5 board cards.
+     * @param numOpponents Number of opponents.
+     * @param iterations   Number of simulation iterations.
+     * @return Approximate winning probability.
+     */
+    public static double calculateOddsRaw(String[] handStr, String[] boardStr, int numOpponents, int iterations) {
+        // SplittableRandom is not synchronized, unlike the shared java.util.Random
+        SplittableRandom rng = new SplittableRandom(); // NOSONAR
+        return calculateOdds(toMask(handStr), toMask(boardStr), numOpponents, iterations, rng);
+    }
+
+    /**
+     * Same as {@link #calculateOddsRaw(String[], String[], int, int)}, but splits the iterations
+     * across the common ForkJoin pool. The same seed always gives the same result, no matter
+     * how many cores are available.
+     */
+    public static double calculateOddsParallel(String[] handStr, String[] boardStr, int numOpponents, int iterations, long seed) {
+        return calculateOddsParallel(toMask(handStr), toMask(boardStr), numOpponents, iterations,
+                new SplittableRandom(seed), ForkJoinPool.commonPool());
+    }
+
+    public static double calculateWinProbability(List<Card> playerHand, List<Card> communityCards, int numOpponents) {
+        return calculateWinProbability(playerHand, communityCards, numOpponents, false);
+    }
+
+    public static double calculateWinProbability(List<Card> playerHand, List<Card> communityCards, int numOpponents, boolean parallel) {
+        long handMask = toMask(playerHand);
+        long boardMask = toMask(communityCards);
+        OddsResult precomputed = lookupPrecomputed(handMask, boardMask, numOpponents);
+        if (precomputed != null) {
+            return precomputed.getProbability();
         }
-        
-        // Check for flush.
-        int flushSuitIndex = -1;
-        for (int i = 0; i < 4; i++) {
-            if (suitCount[i] >= 5) {
-                flushSuitIndex = i;
-                break;
-            }
+        // SplittableRandom is not synchronized, unlike the shared java.util.Random
+        SplittableRandom rng = new SplittableRandom(); // NOSONAR
+        // Use 10000 iterations for a good balance of accuracy and performance
+        if (parallel) {
+            return calculateOddsParallel(handMask, boardMask, numOpponents, DEFAULT_ITERATIONS, rng, ForkJoinPool.commonPool());
         }
-        boolean isFlush = flushSuitIndex != -1;
-        
-        // Check for straight.
-        int straightHigh = 0, consecutive = 0, candidateHigh = 0;
-        for (int r = 14; r >= 2; r--) {
-            if (rankCount[r] > 0) {
-                if (consecutive == 0) candidateHigh = r;
-                consecutive++;
-                if (consecutive >= 5) {
-                    straightHigh = candidateHigh;
-                    break;
-                }
-            } else {
-                consecutive = 0;
-            }
+        return calculateOdds(handMask, boardMask, numOpponents, DEFAULT_ITERATIONS, rng);
+    }
+
+    /**
+     * Adaptive Monte Carlo: samples in batches until the 95% confidence half-width is at most
+     * {@code targetError}, the time budget is used up or {@link #MAX_ADAPTIVE_ITERATIONS} is reached.
+     * Preflop (and, if one is installed, flop) spots are answered from the precomputed tables and
+     * spots with few remaining deals are enumerated exactly instead.
+     */
+    public static OddsResult estimateWinProbability(List<Card> playerHand, List<Card> communityCards, int numOpponents,
+                                                    double targetError, long timeBudgetMillis, boolean parallel) {
+        long handMask = toMask(playerHand);
+        long boardMask = toMask(communityCards);
+        OddsResult precomputed = lookupPrecomputed(handMask, boardMask, numOpponents);
+        if (precomputed != null) {
+            return precomputed;
         }
-        // Special case: A-2-3-4-5 straight.
-        if (rankCount[14] > 0 && rankCount[5] > 0 && rankCount[4] > 0 &&
-            rankCount[3] > 0 && rankCount[2] > 0) {
-            straightHigh = Math.max(straightHigh, 5);
+        int[] deck = prepareDeck(handMask, boardMask, numOpponents, 1);
+        int missingBoard = 5 - Long.bitCount(boardMask);
+
+        long deals = dealCount(deck.length, missingBoard, numOpponents);
+        if (deals <= ENUMERATION_THRESHOLD) {
+            return new OddsResult(enumerate(deck, handMask, boardMask, missingBoard, numOpponents), 0.0, deals);
         }
-        
-        // Check for straight flush.
-        int straightFlushHigh = 0;
-        if (isFlush) {
-            char flushSuit = Card.indexToSuit(flushSuitIndex);
-            int[] flushRankCount = new int[15];
-            for (Card c : cards) {
-                if (c.getSuitChar() == flushSuit)
-                    flushRankCount[c.getRank().getValue()]++;
-            }
-            consecutive = 0;
-            candidateHigh = 0;
-            for (int r = 14; r >= 2; r--) {
-                if (flushRankCount[r] > 0) {
-                    if (consecutive == 0) candidateHigh = r;
-                    consecutive++;
-                    if (consecutive >= 5) {
-                        straightFlushHigh = candidateHigh;
-                        break;
-                    }
-                } else {
-                    consecutive = 0;
-                }
-            }
-            if (flushRankCount[14] > 0 && flushRankCount[5] > 0 && flushRankCount[4] > 0 &&
-                flushRankCount[3] > 0 && flushRankCount[2] > 0) {
-                straightFlushHigh = Math.max(straightFlushHigh, 5);
+
+        // SplittableRandom is not synchronized, unlike the shared java.util.Random
+        SplittableRandom rng = new SplittableRandom(); // NOSONAR
+        ForkJoinPool pool = parallel ? ForkJoinPool.commonPool() : null;
+        int batch = pool != null ? SimulationTask.CHUNK_SIZE * Math.max(1, pool.getParallelism()) : ADAPTIVE_BATCH;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+
+        Tally tally = new Tally();
+        do {
+            if (pool != null) {
+                tally.add(pool.invoke(new SimulationTask(deck, handMask, boardMask, missingBoard, numOpponents,
+                        batch, rng.split())));
+            } else {
+                simulate(deck, handMask, boardMask, missingBoard, numOpponents, batch, rng, tally);
             }
-        }
-        
-        if (straightFlushHigh > 0)
-            return new HandValue(8, Arrays.asList(straightFlushHigh));
-        
-        // Four of a kind.
-        for (int r = 14; r >= 2; r--) {
-            if (rankCount[r] == 4) {
-                int kicker = 0;
-                for (int k = 14; k >= 2; k--) {
-                    if (k != r && rankCount[k] > 0) {
-                        kicker = k;
-                        break;
-                    }
-                }
-                return new HandValue(7, Arrays.asList(r, kicker));
+        } while (tally.iterations < MAX_ADAPTIVE_ITERATIONS
+                && tally.halfWidth() > targetError
+                && System.nanoTime() < deadline
+                // A background computation that is no longer needed is cancelled by interrupting it
+                && !Thread.currentThread().isInterrupted());
+
+        return new OddsResult(tally.mean(), tally.halfWidth(), tally.iterations);
+    }
+
+    /**
+     * Answers the spot from the preflop table or the memory-mapped flop table, null if neither covers it.
+     */
+    private static OddsResult lookupPrecomputed(long handMask, long boardMask, int numOpponents) {
+        OddsResult result = PreflopEquityTable.lookup(handMask, boardMask, numOpponents);
+        if (result == null) {
+            FlopEquityTable flopTable = FlopEquityTable.installed();
+            if (flopTable != null) {
+                result = flopTable.lookup(handMask, boardMask, numOpponents);
             }
         }
-        
-        // Full house.
-        int threeRank = -1, pairRank = -1;
-        for (int r = 14; r >= 2; r--) {
-            if (rankCount[r] >= 3 && threeRank == -1)
-                threeRank = r;
-            else if (rankCount[r] >= 2 && pairRank == -1)
-                pairRank = r;
+        return result;
+    }
+
+    /**
+     * Runs the simulation on the calling thread for a hand and board given as bitmasks of card codes.
+     */
+    static double calculateOdds(long handMask, long boardMask, int numOpponents, int iterations, SplittableRandom rng) {
+        int[] deck = prepareDeck(handMask, boardMask, numOpponents, iterations);
+        int missingBoard = 5 - Long.bitCount(boardMask);
+        if (dealCount(deck.length, missingBoard, numOpponents) <= ENUMERATION_THRESHOLD) {
+            return enumerate(deck, handMask, boardMask, missingBoard, numOpponents);
         }
-        if (threeRank != -1 && pairRank != -1)
-            return new HandValue(6, Arrays.asList(threeRank, pairRank));
-        
-        // Flush.
-        if (isFlush) {
-            char flushSuit = Card.indexToSuit(flushSuitIndex);
-            List<Integer> flushCards = new ArrayList<>();
-            for (Card c : cards) {
-                if (c.getSuitChar() == flushSuit)
-                    flushCards.add(c.getRank().getValue());
-            }
-            flushCards.sort(Collections.reverseOrder());
-            List<Integer> kickers = flushCards.subList(0, Math.min(5, flushCards.size()));
-            return new HandValue(5, new ArrayList<>(kickers));
+        Tally tally = new Tally();
+        simulate(deck, handMask, boardMask, missingBoard, numOpponents, iterations, rng, tally);
+        return tally.mean();
+    }
+
+    /**
+     * Runs the simulation as a fork/join task tree on the given pool.
+     */
+    static double calculateOddsParallel(long handMask, long boardMask, int numOpponents, int iterations,
+                                        SplittableRandom rng, ForkJoinPool pool) {
+        int[] deck = prepareDeck(handMask, boardMask, numOpponents, iterations);
+        int missingBoard = 5 - Long.bitCount(boardMask);
+        if (dealCount(deck.length, missingBoard, numOpponents) <= ENUMERATION_THRESHOLD) {
+            return enumerate(deck, handMask, boardMask, missingBoard, numOpponents);
         }
-        
-        // Straight.
-        if (straightHigh > 0)
-            return new HandValue(4, Arrays.asList(straightHigh));
-        
-        // Three of a kind.
-        for (int r = 14; r >= 2; r--) {
-            if (rankCount[r] == 3) {
-                List<Integer> kickers = new ArrayList<>();
-                for (int k = 14; k >= 2; k--) {
-                    if (k != r && rankCount[k] > 0) {
-                        for (int i = 0; i < rankCount[k]; i++)
-                            kickers.add(k);
-                    }
-                }
-                while (kickers.size() > 2)
-                    kickers.remove(kickers.size() - 1);
-                List<Integer> vals = new ArrayList<>();
-                vals.add(r);
-                vals.addAll(kickers);
-                return new HandValue(3, vals);
-            }
+        SimulationTask task = new SimulationTask(deck, handMask, boardMask, missingBoard, numOpponents, iterations, rng);
+        return pool.invoke(task).mean();
+    }
+
+    private static int[] prepareDeck(long handMask, long boardMask, int numOpponents, int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Number of iterations must be positive");
         }
-        
-        // Two pair.
-        int highPair = -1, lowPair = -1;
-        for (int r = 14; r >= 2; r--) {
-            if (rankCount[r] == 2) {
-                if (highPair == -1)
-                    highPair = r;
-                else if (lowPair == -1) {
-                    lowPair = r;
-                    break;
-                }
-            }
+        int[] deck = remainingDeck(handMask | boardMask);
+        int missingBoard = 5 - Long.bitCount(boardMask);
+        if (missingBoard < 0 || missingBoard + 2 * numOpponents > deck.length) {
+            throw new IllegalArgumentException("Not enough cards left to deal " + numOpponents + " opponents");
         }
-        if (highPair != -1 && lowPair != -1) {
-            int kicker = 0;
-            for (int r = 14; r >= 2; r--) {
-                if (r != highPair && r != lowPair && rankCount[r] > 0) {
-                    kicker = r;
-                    break;
-                }
-            }
-            return new HandValue(2, Arrays.asList(highPair, lowPair, kicker));
+        return deck;
+    }
+
+    /**
+     * Running sums of the per-iteration win weights.
+     */
+    static final class Tally {
+        // z value of a two-sided 95% confidence interval
+        private static final double Z_95 = 1.96;
+
+        double weight;
+        double weightSquares;
+        long iterations;
+
+        void add(Tally other) {
+            weight += other.weight;
+            weightSquares += other.weightSquares;
+            iterations += other.iterations;
         }
-        
-        // One pair.
-        if (highPair != -1) {
-            List<Integer> kickers = new ArrayList<>();
-            for (int r = 14; r >= 2; r--) {
-                if (r != highPair && rankCount[r] > 0) {
-                    for (int i = 0; i < rankCount[r]; i++)
-                        kickers.add(r);
-                }
-            }
-            while (kickers.size() > 3)
-                kickers.remove(kickers.size() - 1);
-            List<Integer> vals = new ArrayList<>();
-            vals.add(highPair);
-            vals.addAll(kickers);
-            return new HandValue(1, vals);
+
+        double mean() {
+            return weight / iterations;
         }
-        
-        // High card.
-        List<Integer> highCards = new ArrayList<>();
-        for (int r = 14; r >= 2; r--) {
-            for (int i = 0; i < rankCount[r]; i++) {
-                highCards.add(r);
-            }
+
+        /**
+         * Agresti-Coull style half-width: z²/2 pseudo wins and z²/2 pseudo losses are added before the
+         * variance is taken, so a sample of only wins (or only losses) does not claim to be exact.
+         */
+        double halfWidth() {
+            double pseudo = Z_95 * Z_95 / 2;
+            double n = iterations + 2 * pseudo;
+            double mean = (weight + pseudo) / n;
+            double variance = Math.max(0.0, (weightSquares + pseudo) / n - mean * mean);
+            return Z_95 * Math.sqrt(variance / n);
         }
-        while (highCards.size() > 5)
-            highCards.remove(highCards.size() - 1);
-        return new HandValue(0, highCards);
     }
-    
+
     /**
-     * Monte Carlo simulation to estimate winning odds.
-     * Instead of enumerating every possible outcome, we sample random deals.
-     *
-     * @param handStr      Two-card array for the player (e.g. {"AS", "KD"}).
-     * @param boardStr     0–5 board cards.
-     * @param numOpponents Number of opponents.
-     * @param iterations   Number of simulation iterations.
-     * @return Approximate winning probability.
+     * Splits the iteration budget in halves until a chunk is small enough to simulate.
+     * The split points, the random streams (one SplittableRandom.split() per fork) and the
+     * order in which the partial weights are added only depend on the iteration count,
+     * so the result is reproducible whatever threads end up running the chunks.
      */
-    public static double calculateOddsRaw(String[] handStr, String[] boardStr, int numOpponents, int iterations) {
-        List<Card> playerHand = new ArrayList<>();
-        for (String s : handStr) {
-            playerHand.add(Card.fromShortString(s));
+    static final class SimulationTask extends RecursiveTask<Tally> {
+        static final int CHUNK_SIZE = 1250;
+
+        private final int[] deck;
+        private final long handMask;
+        private final long boardMask;
+        private final int missingBoard;
+        private final int numOpponents;
+        private final int iterations;
+        private final SplittableRandom rng;
+
+        SimulationTask(int[] deck, long handMask, long boardMask, int missingBoard, int numOpponents,
+                       int iterations, SplittableRandom rng) {
+            this.deck = deck;
+            this.handMask = handMask;
+            this.boardMask = boardMask;
+            this.missingBoard = missingBoard;
+            this.numOpponents = numOpponents;
+            this.iterations = iterations;
+            this.rng = rng;
         }
-        List<Card> board = new ArrayList<>();
-        for (String s : boardStr) {
-            board.add(Card.fromShortString(s));
+
+        @Override
+        protected Tally compute() {
+            if (iterations <= CHUNK_SIZE) {
+                // Every chunk shuffles its own copy of the deck
+                Tally tally = new Tally();
+                simulate(deck.clone(), handMask, boardMask, missingBoard, numOpponents, iterations, rng, tally);
+                return tally;
+            }
+            int half = iterations / 2;
+            SimulationTask right = new SimulationTask(deck, handMask, boardMask, missingBoard, numOpponents,
+                    iterations - half, rng.split());
+            SimulationTask left = new SimulationTask(deck, handMask, boardMask, missingBoard, numOpponents,
+                    half, rng);
+            right.fork();
+            Tally tally = left.compute();
+            tally.add(right.join());
+            return tally;
         }
-        
-        // Build deck excluding known cards.
-        Set<Card> known = new HashSet<>();
-        known.addAll(playerHand);
-        known.addAll(board);
-        List<Card> deck = Deck.createDeckExcluding(known);
-        
-        int missingBoard = 5 - board.size();
-        // Don't sonar since this is a static method and not an instance method
-        Random rng = new Random(); // NOSONAR
+    }
+
+    /**
+     * Simulation kernel. Works in place on the given deck of card codes and does not allocate:
+     * each iteration only shuffles the cards it actually draws (partial Fisher-Yates) and
+     * evaluates the hands as bitmasks. The win weights (ties count as a share of the pot)
+     * are added to the given tally.
+     */
+    static void simulate(int[] deck, long handMask, long boardMask, int missingBoard, int numOpponents,
+                         int iterations, SplittableRandom rng, Tally tally) {
+        int deckSize = deck.length;
+        int drawn = missingBoard + 2 * numOpponents;
         double totalWeight = 0.0;
-        
+        double totalSquares = 0.0;
+
         for (int iter = 0; iter < iterations; iter++) {
-            // Copy deck into an array for shuffling.
-            Card[] simDeck = deck.toArray(new Card[deck.size()]);
-            // Fisher-Yates shuffle.
-            for (int j = simDeck.length - 1; j > 0; j--) {
-                int k = rng.nextInt(j + 1);
-                Card temp = simDeck[j];
-                simDeck[j] = simDeck[k];
-                simDeck[k] = temp;
+            // The deck is left permuted by the previous iteration, which keeps the draw uniform.
+            for (int j = 0; j < drawn; j++) {
+                int k = j + rng.nextInt(deckSize - j);
+                int temp = deck[j];
+                deck[j] = deck[k];
+                deck[k] = temp;
             }
-            
+
             // Complete the board.
-            List<Card> fullBoard = new ArrayList<>(board);
+            long fullBoard = boardMask;
             for (int j = 0; j < missingBoard; j++) {
-                fullBoard.add(simDeck[j]);
+                fullBoard |= 1L << deck[j];
             }
-            
+
             // Evaluate player's 7-card hand.
-            List<Card> playerSeven = new ArrayList<>(playerHand);
-            playerSeven.addAll(fullBoard);
-            HandValue playerValue = evaluateHand(playerSeven);
-            
-            // Deal opponent hands sequentially.
-            HandValue bestOpp = null;
+            int playerValue = HandEvaluator.evaluate(fullBoard | handMask);
+
+            // Deal opponent hands sequentially, right after the board completions.
+            int bestOpp = -1;
             int tiedOpponents = 0;
-            int offset = missingBoard; // opponents' cards start right after the board completions.
-            for (int opp = 0; opp < numOpponents; opp++) {
-                List<Card> oppHand = new ArrayList<>(2);
-                oppHand.add(simDeck[offset + opp * 2]);
-                oppHand.add(simDeck[offset + opp * 2 + 1]);
-                List<Card> oppSeven = new ArrayList<>(oppHand);
-                oppSeven.addAll(fullBoard);
-                HandValue oppValue = evaluateHand(oppSeven);
-                if (bestOpp == null || oppValue.compareTo(bestOpp) > 0) {
+            for (int j = missingBoard; j < drawn; j += 2) {
+                int oppValue = HandEvaluator.evaluate(fullBoard | (1L << deck[j]) | (1L << deck[j + 1]));
+                if (oppValue > bestOpp) {
                     bestOpp = oppValue;
                     tiedOpponents = 1;
-                } else if (oppValue.compareTo(bestOpp) == 0) {
+                } else if (oppValue == bestOpp) {
                     tiedOpponents++;
                 }
             }
-            
-            int cmp = playerValue.compareTo(bestOpp);
-            double scenarioWeight = cmp > 0 ? 1.0 : (cmp == 0 ? 1.0 / (tiedOpponents + 1) : 0.0);
-            totalWeight += scenarioWeight;
+
+            if (playerValue > bestOpp) {
+                totalWeight += 1.0;
+                totalSquares += 1.0;
+            } else if (playerValue == bestOpp) {
+                double share = 1.0 / (tiedOpponents + 1);
+                totalWeight += share;
+                totalSquares += share * share;
+            }
         }
-        
-        return totalWeight / iterations;
+
+        tally.weight += totalWeight;
+        tally.weightSquares += totalSquares;
+        tally.iterations += iterations;
     }
 
-    public static double calculateWinProbability(List<Card> playerHand, List<Card> communityCards, int numOpponents) {
-        // Convert player's hand to string array
-        String[] playerHandStr = new String[playerHand.size()];
-        for (int i = 0; i < playerHand.size(); i++) {
-            playerHandStr[i] = playerHand.get(i).toShortString();
+    /**
+     * Number of distinct deals (board completions times opponent hands, opponents in seat order)
+     * an exact enumeration would have to visit. Saturates at Long.MAX_VALUE.
+     */
+    static long dealCount(int deckSize, int missingBoard, int numOpponents) {
+        double count = choose(deckSize, missingBoard);
+        int left = deckSize - missingBoard;
+        for (int opp = 0; opp < numOpponents; opp++) {
+            count *= choose(left, 2);
+            left -= 2;
         }
+        return count >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) count;
+    }
 
-        // Convert community cards to string array
-        String[] communityCardsStr = new String[communityCards.size()];
-        for (int i = 0; i < communityCards.size(); i++) {
-            communityCardsStr[i] = communityCards.get(i).toShortString();
+    private static double choose(int n, int k) {
+        double result = 1.0;
+        for (int i = 0; i < k; i++) {
+            result = result * (n - i) / (i + 1);
         }
+        return result;
+    }
 
-        // Use 10000 iterations for a good balance of accuracy and performance
-        return calculateOddsRaw(playerHandStr, communityCardsStr, numOpponents, 10000);
+    /**
+     * Exact equity: visits every board completion and every way to deal the opponents' hands.
+     * Only used when {@link #dealCount} is small, typically on the turn and river.
+     */
+    static double enumerate(int[] deck, long handMask, long boardMask, int missingBoard, int numOpponents) {
+        Enumeration enumeration = new Enumeration(deck, handMask, numOpponents);
+        enumeration.completeBoard(boardMask, 0, missingBoard);
+        return enumeration.totalWeight / enumeration.deals;
+    }
+
+    private static final class Enumeration {
+        private final int[] deck;
+        private final long handMask;
+        private final int numOpponents;
+
+        private long board;
+        private int playerValue;
+        private double totalWeight;
+        private long deals;
+
+        Enumeration(int[] deck, long handMask, int numOpponents) {
+            this.deck = deck;
+            this.handMask = handMask;
+            this.numOpponents = numOpponents;
+        }
+
+        void completeBoard(long cards, int start, int missing) {
+            if (missing == 0) {
+                board = cards;
+                playerValue = HandEvaluator.evaluate(cards | handMask);
+                dealOpponents(cards, 0, -1, 0);
+                return;
+            }
+            for (int i = start; i <= deck.length - missing; i++) {
+                completeBoard(cards | (1L << deck[i]), i + 1, missing - 1);
+            }
+        }
+
+        void dealOpponents(long used, int opponent, int bestOpp, int tiedOpponents) {
+            if (opponent == numOpponents) {
+                deals++;
+                if (playerValue > bestOpp) {
+                    totalWeight += 1.0;
+                } else if (playerValue == bestOpp) {
+                    totalWeight += 1.0 / (tiedOpponents + 1);
+                }
+                return;
+            }
+            for (int i = 0; i < deck.length; i++) {
+                long first = 1L << deck[i];
+                if ((used & first) != 0) {
+                    continue;
+                }
+                for (int j = i + 1; j < deck.length; j++) {
+                    long second = 1L << deck[j];
+                    if ((used & second) != 0) {
+                        continue;
+                    }
+                    int oppValue = HandEvaluator.evaluate(board | first | second);
+                    if (oppValue > bestOpp) {
+                        dealOpponents(used | first | second, opponent + 1, oppValue, 1);
+                    } else if (oppValue == bestOpp) {
+                        dealOpponents(used | first | second, opponent + 1, bestOpp, tiedOpponents + 1);
+                    } else {
+                        dealOpponents(used | first | second, opponent + 1, bestOpp, tiedOpponents);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the codes of all cards not contained in the given mask.
+     */
+    static int[] remainingDeck(long knownMask) {
+        long remaining = CardSet.ofBits(knownMask).complement().bits();
+        int[] deck = new int[Long.bitCount(remaining)];
+        for (int i = 0; i < deck.length; i++) {
+            deck[i] = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+        }
+        return deck;
+    }
+
+    static long toMask(String[] cards) {
+        return CardSet.fromShortStrings(Arrays.asList(cards)).bits();
+    }
+
+    static long toMask(List<Card> cards) {
+        return CardSet.of(cards).bits();
     }
 }
@@ -0,0 +1,33 @@
+package ch.uzh.ifi.hase.soprafs24.helpers;
+
+/**
+ * Win probability together with its precision.
+ * An exactly enumerated result has an error bound of 0 and reports the number of deals visited.
+ */
+public class OddsResult {
+
+    private final double probability;
+    private final double errorBound;
+    private final long iterations;
+
+    public OddsResult(double probability, double errorBound, long iterations) {
+        this.probability = probability;
+        this.errorBound = errorBound;
+        this.iterations = iterations;
+    }
+
+    public double getProbability() {
+        return probability;
+    }
+
+    /**
+     * Half-width of the 95% confidence interval around the probability.
+     */
+    public double getErrorBound() {
+        return errorBound;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+}
@@ -0,0 +1,168 @@
+package ch.uzh.ifi.hase.soprafs24.helpers;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Precomputed preflop equities for the 169 canonical starting hands against 1-9 opponents.
+ *
+ * Preflop equity only depends on the two hole ranks, whether they are suited and the number of
+ * opponents, so the whole street fits in a small table that is shipped as the resource
+ * {@value #RESOURCE}. The file holds the number of simulated deals per entry (int) followed by
+ * 169 * 9 unsigned 16-bit equities (equity * 65535), hand-major, all big-endian.
+ *
+ * Hand index: row = higher rank, column = lower rank of the 13 x 13 starting hand grid.
+ * Pairs sit on the diagonal, suited hands above it (row &gt; column) and offsuit hands below it.
+ *
+ * The resource is regenerated with {@code ./gradlew generatePreflopTable}, which runs {@link #main}.
+ */
+public final class PreflopEquityTable {
+
+    static final String RESOURCE = "/odds/preflop-equity.bin";
+
+    public static final int HANDS = 169;
+    public static final int MAX_OPPONENTS = 9;
+
+    private static final double SCALE = 65535.0;
+    private static final double Z_95 = 1.96;
+
+    private static final int DEFAULT_ITERATIONS = 500000;
+    private static final long DEFAULT_SEED = 169L;
+
+    private final char[] equities;
+    private final int iterations;
+
+    PreflopEquityTable(char[] equities, int iterations) {
+        this.equities = equities;
+        this.iterations = iterations;
+    }
+
+    // Loaded on first use; null when the resource is not on the classpath
+    private static final class Holder {
+        private static final PreflopEquityTable INSTANCE = load();
+    }
+
+    /**
+     * Returns the table shipped with the application, or null if the resource is missing.
+     */
+    static PreflopEquityTable get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Looks up the preflop equity of a two-card hand. Returns null when the spot is not preflop
+     * or the opponent count is outside the table, so the caller can fall back to simulation.
+     */
+    static OddsResult lookup(long handMask, long boardMask, int numOpponents) {
+        PreflopEquityTable table = get();
+        if (table == null || boardMask != 0L || Long.bitCount(handMask) != 2
+                || numOpponents < 1 || numOpponents > MAX_OPPONENTS) {
+            return null;
+        }
+        int first = Long.numberOfTrailingZeros(handMask);
+        int second = 63 - Long.numberOfLeadingZeros(handMask);
+        double equity = table.equity(handIndex(first, second), numOpponents);
+        // Every deal is worth between 0 and 1, so p * (1 - p) bounds the variance of the estimate
+        double errorBound = Z_95 * Math.sqrt(equity * (1.0 - equity) / table.iterations);
+        return new OddsResult(equity, errorBound, table.iterations);
+    }
+
+    /**
+     * Canonical starting hand index (0-168) of two card codes.
+     */
+    static int handIndex(int firstCode, int secondCode) {
+        int firstRank = firstCode % 13;
+        int secondRank = secondCode % 13;
+        int high = Math.max(firstRank, secondRank);
+        int low = Math.min(firstRank, secondRank);
+        boolean suited = firstCode / 13 == secondCode / 13;
+        return suited ? high * 13 + low : low * 13 + high;
+    }
+
+    double equity(int handIndex, int numOpponents) {
+        return equities[handIndex * MAX_OPPONENTS + numOpponents - 1] / SCALE;
+    }
+
+    private static PreflopEquityTable load() {
+        InputStream resource = PreflopEquityTable.class.getResourceAsStream(RESOURCE);
+        if (resource == null) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(resource))) {
+            return read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + RESOURCE, e);
+        }
+    }
+
+    static PreflopEquityTable read(DataInput in) throws IOException {
+        int iterations = in.readInt();
+        char[] equities = new char[HANDS * MAX_OPPONENTS];
+        for (int i = 0; i < equities.length; i++) {
+            equities[i] = in.readChar();
+        }
+        return new PreflopEquityTable(equities, iterations);
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(iterations);
+        for (char equity : equities) {
+            out.writeChar(equity);
+        }
+    }
+
+    /**
+     * Simulates every starting hand against 1-9 opponents. Each entry gets its own split of the
+     * seeded generator, so the same seed and iteration count always produce the same file.
+     */
+    static PreflopEquityTable compute(int iterations, long seed, ForkJoinPool pool) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        char[] equities = new char[HANDS * MAX_OPPONENTS];
+        for (int index = 0; index < HANDS; index++) {
+            long handMask = representative(index);
+            for (int opponents = 1; opponents <= MAX_OPPONENTS; opponents++) {
+                double equity = OddsCalculator.calculateOddsParallel(handMask, 0L, opponents, iterations,
+                        rng.split(), pool);
+                equities[index * MAX_OPPONENTS + opponents - 1] = (char) Math.round(equity * SCALE);
+            }
+        }
+        return new PreflopEquityTable(equities, iterations);
+    }
+
+    // Hearts for the first card, diamonds for an offsuit or paired second card
+    private static long representative(int index) {
+        int row = index / 13;
+        int column = index % 13;
+        if (row == column) {
+            return (1L << row) | (1L << (13 + row));
+        }
+        if (row > column) {
+            return (1L << row) | (1L << column);
+        }
+        return (1L << column) | (1L << (13 + row));
+    }
+
+    /**
+     * Regenerates the table: {@code PreflopEquityTable <output file> [iterations] [seed]}.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: PreflopEquityTable <output file> [iterations] [seed]");
+        }
+        Path output = Paths.get(args[0]);
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+
+        PreflopEquityTable table = compute(iterations, seed, ForkJoinPool.commonPool());
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            table.write(out);
+        }
+    }
+}
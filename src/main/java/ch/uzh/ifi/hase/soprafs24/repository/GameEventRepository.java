@@ -0,0 +1,38 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import ch.uzh.ifi.hase.soprafs24.entity.GameEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository("gameEventRepository")
+public interface GameEventRepository extends JpaRepository<GameEvent, Long> {
+
+    /**
+     * The events of a game after the given sequence number, in order
+     */
+    List<GameEvent> findByGameIdAndSequenceGreaterThanOrderBySequenceAsc(Long gameId, long sequence);
+
+    /**
+     * Whether a game has events after the given sequence number
+     */
+    boolean existsByGameIdAndSequenceGreaterThan(Long gameId, long sequence);
+
+    /**
+     * Deletes the events of a game up to the given sequence number, in one statement
+     */
+    @Modifying
+    @Query("DELETE FROM GameEvent e WHERE e.gameId = :gameId AND e.sequence <= :sequence")
+    int deleteUpTo(@Param("gameId") Long gameId, @Param("sequence") long sequence);
+
+    /**
+     * Deletes all events of a game, in one statement
+     */
+    @Modifying
+    @Query("DELETE FROM GameEvent e WHERE e.gameId = :gameId")
+    int deleteAllOfGame(@Param("gameId") Long gameId);
+}
@@ -0,0 +1,38 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
+
+/**
+ * GameHeader
+ * The few columns of a game that access checks need, loaded without the players.
+ */
+public class GameHeader {
+
+    private final Long id;
+    private final Long creatorId;
+    private final Boolean isPublic;
+    private final GameStatus gameStatus;
+
+    public GameHeader(Long id, Long creatorId, Boolean isPublic, GameStatus gameStatus) {
+        this.id = id;
+        this.creatorId = creatorId;
+        this.isPublic = isPublic;
+        this.gameStatus = gameStatus;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCreatorId() {
+        return creatorId;
+    }
+
+    public Boolean getIsPublic() {
+        return isPublic;
+    }
+
+    public GameStatus getGameStatus() {
+        return gameStatus;
+    }
+}
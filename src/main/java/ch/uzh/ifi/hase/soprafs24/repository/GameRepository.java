@@ -1,12 +1,78 @@
 package ch.uzh.ifi.hase.soprafs24.repository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyGameDTO;
+
+import java.util.List;
 
 @Repository("gameRepository")
 public interface GameRepository extends JpaRepository<Game, Long> {
 
     Game findByid(Long id);
 
+    /**
+     * Find a game together with its players in a single statement, for operations that
+     * work on the whole table
+     */
+    @EntityGraph("Game.tableState")
+    Game findTableStateById(Long id);
+
+    /**
+     * Find only the columns needed to check access to a game, without loading its table
+     */
+    @Query("SELECT new ch.uzh.ifi.hase.soprafs24.repository.GameHeader(g.id, g.creatorId, g.isPublic, g.gameStatus) " +
+           "FROM Game g WHERE g.id = :id")
+    GameHeader findTableHeaderById(@Param("id") Long id);
+
+    /**
+     * Find the games that are listed in the lobby
+     */
+    List<Game> findByIsPublicTrueAndGameStatusNot(GameStatus gameStatus);
+
+    // Shared part of the lobby queries, they only differ in the status filter
+    String LOBBY_PAGE = "SELECT new ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyGameDTO(g.id, g.creatorId, g.smallBlind, " +
+            "g.bigBlind, g.startCredit, g.maximalPlayers, g.numberOfPlayers, g.gameStatus) " +
+            "FROM Game g " +
+            "WHERE g.isPublic = true " +
+            "AND g.gameStatus <> ch.uzh.ifi.hase.soprafs24.constant.GameStatus.ARCHIVED " +
+            "AND g.id > :afterId " +
+            "AND g.smallBlind BETWEEN :minSmallBlind AND :maxSmallBlind " +
+            "AND g.bigBlind BETWEEN :minBigBlind AND :maxBigBlind " +
+            "AND g.maximalPlayers - g.numberOfPlayers >= :minOpenSeats ";
+
+    /**
+     * Find one page of the lobby: public, not archived games with an id after the given one, in id order,
+     * whose blinds are in the given ranges and that have the given number of open seats.
+     * Keyset pagination, the database seeks to afterId on the primary key instead of skipping rows,
+     * so every page costs the same. The page size is taken from the pageable.
+     */
+    @Query(LOBBY_PAGE + "ORDER BY g.id ASC")
+    List<LobbyGameDTO> findLobbyPage(@Param("afterId") Long afterId,
+                                     @Param("minSmallBlind") int minSmallBlind,
+                                     @Param("maxSmallBlind") int maxSmallBlind,
+                                     @Param("minBigBlind") int minBigBlind,
+                                     @Param("maxBigBlind") int maxBigBlind,
+                                     @Param("minOpenSeats") int minOpenSeats,
+                                     Pageable pageable);
+
+    /**
+     * Like findLobbyPage, only games in the given status
+     */
+    @Query(LOBBY_PAGE + "AND g.gameStatus = :status ORDER BY g.id ASC")
+    List<LobbyGameDTO> findLobbyPageByStatus(@Param("afterId") Long afterId,
+                                             @Param("minSmallBlind") int minSmallBlind,
+                                             @Param("maxSmallBlind") int maxSmallBlind,
+                                             @Param("minBigBlind") int minBigBlind,
+                                             @Param("maxBigBlind") int maxBigBlind,
+                                             @Param("minOpenSeats") int minOpenSeats,
+                                             @Param("status") GameStatus status,
+                                             Pageable pageable);
+
 }
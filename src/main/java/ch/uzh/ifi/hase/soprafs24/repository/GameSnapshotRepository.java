@@ -0,0 +1,31 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import ch.uzh.ifi.hase.soprafs24.entity.GameSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository("gameSnapshotRepository")
+public interface GameSnapshotRepository extends JpaRepository<GameSnapshot, Long> {
+
+    /**
+     * The latest snapshot of a game
+     */
+    GameSnapshot findFirstByGameIdOrderBySequenceDesc(Long gameId);
+
+    /**
+     * Deletes the snapshots of a game up to the given sequence number, in one statement
+     */
+    @Modifying
+    @Query("DELETE FROM GameSnapshot s WHERE s.gameId = :gameId AND s.sequence <= :sequence")
+    int deleteUpTo(@Param("gameId") Long gameId, @Param("sequence") long sequence);
+
+    /**
+     * Deletes all snapshots of a game, in one statement
+     */
+    @Modifying
+    @Query("DELETE FROM GameSnapshot s WHERE s.gameId = :gameId")
+    int deleteAllOfGame(@Param("gameId") Long gameId);
+}
@@ -9,6 +9,9 @@ public interface PlayerRepository extends JpaRepository<Player, Long> {
 
     Player findByid(Long id);
 
-    
+    /**
+     * Whether the given user has a seat in the given game, without loading the game
+     */
+    boolean existsByGame_IdAndUserId(Long gameId, Long userId);
 
 }
@@ -0,0 +1,103 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
+
+/**
+ * LobbyGameDTO
+ * A public game as listed in the lobby, selected directly from the GAME row (no players, no cards).
+ */
+public class LobbyGameDTO {
+
+  private Long id;
+  private Long creatorId;
+  private int smallBlind;
+  private int bigBlind;
+  private Long startCredit;
+  private int maximalPlayers;
+  private int numberOfPlayers;
+  private GameStatus gameStatus;
+
+  public LobbyGameDTO() {
+  }
+
+  // Used by the lobby query in GameRepository
+  public LobbyGameDTO(Long id, Long creatorId, int smallBlind, int bigBlind, Long startCredit,
+                      int maximalPlayers, int numberOfPlayers, GameStatus gameStatus) {
+    this.id = id;
+    this.creatorId = creatorId;
+    this.smallBlind = smallBlind;
+    this.bigBlind = bigBlind;
+    this.startCredit = startCredit;
+    this.maximalPlayers = maximalPlayers;
+    this.numberOfPlayers = numberOfPlayers;
+    this.gameStatus = gameStatus;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public Long getCreatorId() {
+    return creatorId;
+  }
+
+  public void setCreatorId(Long creatorId) {
+    this.creatorId = creatorId;
+  }
+
+  public int getSmallBlind() {
+    return smallBlind;
+  }
+
+  public void setSmallBlind(int smallBlind) {
+    this.smallBlind = smallBlind;
+  }
+
+  public int getBigBlind() {
+    return bigBlind;
+  }
+
+  public void setBigBlind(int bigBlind) {
+    this.bigBlind = bigBlind;
+  }
+
+  public Long getStartCredit() {
+    return startCredit;
+  }
+
+  public void setStartCredit(Long startCredit) {
+    this.startCredit = startCredit;
+  }
+
+  public int getMaximalPlayers() {
+    return maximalPlayers;
+  }
+
+  public void setMaximalPlayers(int maximalPlayers) {
+    this.maximalPlayers = maximalPlayers;
+  }
+
+  public int getNumberOfPlayers() {
+    return numberOfPlayers;
+  }
+
+  public void setNumberOfPlayers(int numberOfPlayers) {
+    this.numberOfPlayers = numberOfPlayers;
+  }
+
+  public int getOpenSeats() {
+    return Math.max(0, maximalPlayers - numberOfPlayers);
+  }
+
+  public GameStatus getGameStatus() {
+    return gameStatus;
+  }
+
+  public void setGameStatus(GameStatus gameStatus) {
+    this.gameStatus = gameStatus;
+  }
+}
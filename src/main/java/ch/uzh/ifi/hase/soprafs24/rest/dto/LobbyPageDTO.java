@@ -0,0 +1,38 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import java.util.List;
+
+/**
+ * LobbyPageDTO
+ * One page of the lobby. The next page is requested with after = nextAfter,
+ * nextAfter is null on the last page.
+ */
+public class LobbyPageDTO {
+
+  private List<LobbyGameDTO> games;
+  private Long nextAfter;
+
+  public LobbyPageDTO() {
+  }
+
+  public LobbyPageDTO(List<LobbyGameDTO> games, Long nextAfter) {
+    this.games = games;
+    this.nextAfter = nextAfter;
+  }
+
+  public List<LobbyGameDTO> getGames() {
+    return games;
+  }
+
+  public void setGames(List<LobbyGameDTO> games) {
+    this.games = games;
+  }
+
+  public Long getNextAfter() {
+    return nextAfter;
+  }
+
+  public void setNextAfter(Long nextAfter) {
+    this.nextAfter = nextAfter;
+  }
+}
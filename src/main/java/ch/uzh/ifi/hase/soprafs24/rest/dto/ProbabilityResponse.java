@@ -2,6 +2,8 @@ package ch.uzh.ifi.hase.soprafs24.rest.dto;
 
 public class ProbabilityResponse {
     private double probability;
+    private double errorBound;
+    private long iterations;
 
     public double getProbability() {
         return probability;
@@ -10,4 +12,20 @@ public class ProbabilityResponse {
     public void setProbability(double probability) {
         this.probability = probability;
     }
-} 
\ No newline at end of file
+
+    public double getErrorBound() {
+        return errorBound;
+    }
+
+    public void setErrorBound(double errorBound) {
+        this.errorBound = errorBound;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public void setIterations(long iterations) {
+        this.iterations = iterations;
+    }
+}
@@ -55,6 +55,8 @@ public interface DTOMapper {
     @Mapping(source = "maximalPlayers", target = "maximalPlayers")
     @Mapping(source = "startCredit", target = "startCredit")
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "eventSequence", ignore = true)
     @Mapping(target = "gameStatus", ignore = true)
     @Mapping(target = "cardDeck", ignore = true)
     @Mapping(target = "communityCards", ignore = true)
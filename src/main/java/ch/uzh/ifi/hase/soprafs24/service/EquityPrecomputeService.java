@@ -0,0 +1,165 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.helpers.OddsResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Computes the players' win probabilities in the background as soon as a street is dealt,
+ * so that the probability and advice requests of that street only have to read the result.
+ *
+ * Results are kept per game and player together with the board they were computed for;
+ * dealing the next street replaces them and the end of the hand drops them. The executor and
+ * its queue are bounded: when the queue is full a spot is simply not precomputed and the request
+ * computes it itself. A request also waits only briefly for a result that is still queued or
+ * running, and computes the spot itself after that. At most a fixed number of games keep
+ * results, the game that submitted least recently makes room for a new one.
+ */
+@Service
+public class EquityPrecomputeService {
+
+    static final int DEFAULT_THREADS = 2;
+    static final int DEFAULT_QUEUE_SIZE = 256;
+    static final long DEFAULT_WAIT_MILLIS = 50;
+    static final int DEFAULT_MAX_GAMES = 1024;
+
+    private final ThreadPoolExecutor executor;
+    private final long waitMillis;
+    private final int maxGames;
+
+    // gameId -> userId -> result for the board it was computed on
+    private final Map<Long, GameResults> games = new ConcurrentHashMap<>();
+
+    public EquityPrecomputeService() {
+        this(DEFAULT_THREADS, DEFAULT_QUEUE_SIZE);
+    }
+
+    EquityPrecomputeService(int threads, int queueSize) {
+        this(threads, queueSize, DEFAULT_WAIT_MILLIS, DEFAULT_MAX_GAMES);
+    }
+
+    @Autowired
+    public EquityPrecomputeService(@Value("${odds.precompute.threads:2}") int threads,
+                                   @Value("${odds.precompute.queue-size:256}") int queueSize,
+                                   @Value("${odds.precompute.wait-ms:50}") long waitMillis,
+                                   @Value("${odds.precompute.max-games:1024}") int maxGames) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "equity-precompute-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.waitMillis = waitMillis;
+        this.maxGames = Math.max(1, maxGames);
+    }
+
+    /**
+     * Starts computing a player's win probability on the given board.
+     */
+    public void submit(Long gameId, Long userId, List<String> communityCards, Supplier<OddsResult> compute) {
+        if (gameId == null || userId == null) {
+            return;
+        }
+        GameResults results = games.computeIfAbsent(gameId, id -> new GameResults());
+        results.lastSubmit = System.nanoTime();
+        if (games.size() > maxGames) {
+            evictLeastRecentGame(gameId);
+        }
+        // A FutureTask, unlike a CompletableFuture, interrupts the computation when it is cancelled
+        FutureTask<OddsResult> task = new FutureTask<>(compute::get);
+        Pending replaced;
+        try {
+            executor.execute(task);
+            replaced = results.players.put(userId, new Pending(new ArrayList<>(communityCards), task));
+        } catch (RejectedExecutionException e) {
+            // Queue is full, the request thread computes the odds on demand
+            replaced = results.players.remove(userId);
+        }
+        if (replaced != null) {
+            replaced.result.cancel(true);
+        }
+    }
+
+    /**
+     * Returns the precomputed result for the player on the given board, waiting a short while for it if it
+     * is still being computed. Returns null if nothing was precomputed for this board, the computation failed
+     * or is not done in time; the caller then computes the spot itself.
+     */
+    public OddsResult get(Long gameId, Long userId, List<String> communityCards) {
+        GameResults results = gameId != null ? games.get(gameId) : null;
+        Pending pending = results != null && userId != null ? results.players.get(userId) : null;
+        if (pending == null || !pending.communityCards.equals(communityCards)) {
+            return null;
+        }
+        try {
+            return pending.result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | CancellationException | TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Forgets all results of a game and stops the computations still running for it, e.g. when its
+     * hand ends or the game is deleted.
+     */
+    public void clearGame(Long gameId) {
+        if (gameId == null) {
+            return;
+        }
+        GameResults results = games.remove(gameId);
+        if (results != null) {
+            for (Pending pending : results.players.values()) {
+                pending.result.cancel(true);
+            }
+        }
+    }
+
+    private void evictLeastRecentGame(Long keep) {
+        Long oldest = null;
+        long oldestSubmit = Long.MAX_VALUE;
+        for (Map.Entry<Long, GameResults> entry : games.entrySet()) {
+            if (!entry.getKey().equals(keep) && entry.getValue().lastSubmit < oldestSubmit) {
+                oldest = entry.getKey();
+                oldestSubmit = entry.getValue().lastSubmit;
+            }
+        }
+        clearGame(oldest);
+    }
+
+    int gameCount() {
+        return games.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class GameResults {
+        private final Map<Long, Pending> players = new ConcurrentHashMap<>();
+        private volatile long lastSubmit;
+    }
+
+    private static final class Pending {
+        private final List<String> communityCards;
+        private final Future<OddsResult> result;
+
+        Pending(List<String> communityCards, Future<OddsResult> result) {
+            this.communityCards = communityCards;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameEventType;
+import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
+import ch.uzh.ifi.hase.soprafs24.constant.PlayerAction;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.GameEvent;
+import ch.uzh.ifi.hase.soprafs24.entity.GameSnapshot;
+import ch.uzh.ifi.hase.soprafs24.entity.Player;
+import ch.uzh.ifi.hase.soprafs24.repository.GameEventRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.GameSnapshotRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends every accepted player action and every deal of community cards to the game's event
+ * stream (GAME_EVENT), one insert each, and stores a snapshot of the table every few events.
+ *
+ * A game's eventSequence says which events its state already includes. When a game is loaded,
+ * {@link #replay(Game)} applies the events that are missing, starting from the latest snapshot if
+ * that is newer than the stored game. With tables written in the background this recovers the
+ * actions a crash would otherwise have lost.
+ *
+ * Once a game was written, the events and snapshots its state includes are no longer needed. They
+ * are pruned when a hand ends, which writes the game right away, and all of them when the game is
+ * deleted, so the stream of a game never holds more than the hand being played.
+ */
+@Service
+public class GameEventService {
+
+    static final int DEFAULT_SNAPSHOT_INTERVAL = 50;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Null without Spring, events then only advance the game's sequence number
+    private final GameEventRepository gameEventRepository;
+    private final GameSnapshotRepository gameSnapshotRepository;
+    private final int snapshotInterval;
+
+    public GameEventService() {
+        this(null, null, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    @Autowired
+    public GameEventService(GameEventRepository gameEventRepository,
+                            GameSnapshotRepository gameSnapshotRepository,
+                            @Value("${games.snapshot-interval:50}") int snapshotInterval) {
+        this.gameEventRepository = gameEventRepository;
+        this.gameSnapshotRepository = gameSnapshotRepository;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+    }
+
+    /**
+     * Records an accepted action. Call it after the action was applied to the game.
+     * @param amount the chips the action moved from the player's credit to their bet
+     */
+    public GameEvent recordAction(Game game, Player player, PlayerAction action, long amount) {
+        GameEvent event = newEvent(game, GameEventType.ACTION);
+        event.setUserId(player.getUserId());
+        event.setAction(action);
+        event.setAmount(amount);
+        event.setCallAmount(game.getCallAmount());
+        event.setLastRaisePlayerIndex(game.getLastRaisePlayerIndex());
+        return append(game, event);
+    }
+
+    /**
+     * Records community cards dealt at the end of a betting round. Call it after the new phase was set.
+     */
+    public GameEvent recordDeal(Game game, List<String> cards) {
+        GameEvent event = newEvent(game, GameEventType.DEAL);
+        event.setCards(new ArrayList<>(cards));
+        event.setGameStatus(game.getGameStatus());
+        return append(game, event);
+    }
+
+    private static GameEvent newEvent(Game game, GameEventType type) {
+        GameEvent event = new GameEvent();
+        event.setGameId(game.getId());
+        event.setType(type);
+        event.setCreatedAt(LocalDateTime.now());
+        return event;
+    }
+
+    private GameEvent append(Game game, GameEvent event) {
+        long sequence = game.getEventSequence() + 1;
+        game.setEventSequence(sequence);
+        event.setSequence(sequence);
+        if (gameEventRepository != null) {
+            gameEventRepository.save(event);
+            if (sequence % snapshotInterval == 0) {
+                gameSnapshotRepository.save(snapshot(game));
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Deletes the events and snapshots the stored state of a game includes. Call it in the transaction
+     * that wrote the game, with the sequence number that was written.
+     */
+    public void prune(Long gameId, long writtenSequence) {
+        if (gameEventRepository == null || gameId == null) {
+            return;
+        }
+        gameEventRepository.deleteUpTo(gameId, writtenSequence);
+        gameSnapshotRepository.deleteUpTo(gameId, writtenSequence);
+    }
+
+    /**
+     * Deletes the whole event stream of a game, e.g. because the game was deleted.
+     */
+    public void deleteStream(Long gameId) {
+        if (gameEventRepository == null || gameId == null) {
+            return;
+        }
+        gameEventRepository.deleteAllOfGame(gameId);
+        gameSnapshotRepository.deleteAllOfGame(gameId);
+    }
+
+    /**
+     * Brings a stored game up to date with its event stream and returns it.
+     */
+    public Game replay(Game game) {
+        if (gameEventRepository == null || game == null || game.getId() == null) {
+            return game;
+        }
+        GameSnapshot snapshot = gameSnapshotRepository.findFirstByGameIdOrderBySequenceDesc(game.getId());
+        if (snapshot != null && snapshot.getSequence() > game.getEventSequence()) {
+            restore(game, snapshot);
+        }
+        for (GameEvent event : gameEventRepository.findByGameIdAndSequenceGreaterThanOrderBySequenceAsc(
+                game.getId(), game.getEventSequence())) {
+            apply(game, event);
+        }
+        return game;
+    }
+
+    /**
+     * Like {@link #replay(Game)}, but for reads: the stored game is left untouched, so the transaction does
+     * not write it. Returns the game itself if it is up to date, otherwise an updated copy.
+     */
+    public Game replayForReading(Game game) {
+        if (gameEventRepository == null || game == null || game.getId() == null
+                // Snapshots are only taken at events, a game without later events has no later snapshot either
+                || !gameEventRepository.existsByGameIdAndSequenceGreaterThan(game.getId(), game.getEventSequence())) {
+            return game;
+        }
+        return replay(game.copy());
+    }
+
+    /**
+     * Applies one event to a game whose state includes all events before it.
+     */
+    static void apply(Game game, GameEvent event) {
+        if (event.getSequence() != game.getEventSequence() + 1) {
+            throw new IllegalStateException("Game " + game.getId() + " is at event " + game.getEventSequence()
+                    + ", cannot apply event " + event.getSequence());
+        }
+        switch (event.getType()) {
+            case ACTION:
+                applyAction(game, event);
+                break;
+            case DEAL:
+                applyDeal(game, event);
+                break;
+            default:
+                throw new IllegalStateException("Unknown event type " + event.getType());
+        }
+        game.setEventSequence(event.getSequence());
+    }
+
+    // Mirrors GameService#processPlayerAction, the betting rules were already applied when the event was recorded
+    private static void applyAction(Game game, GameEvent event) {
+        Player player = findPlayer(game, event.getUserId());
+        player.setCredit(player.getCredit() - event.getAmount());
+        player.setCurrentBet(player.getCurrentBet() + event.getAmount());
+        player.setHasActed(true);
+        player.setLastAction(event.getAction());
+        if (event.getAction() == PlayerAction.FOLD) {
+            player.setHasFolded(true);
+        }
+        game.setCallAmount(event.getCallAmount());
+        game.setLastRaisePlayerIndex(event.getLastRaisePlayerIndex());
+        // A complete round is followed by a deal or ends the hand, which is stored right away
+        if (!game.isBettingRoundComplete()) {
+            game.moveToNextPlayer();
+        }
+    }
+
+    // Mirrors GameService#advanceGamePhase
+    private static void applyDeal(Game game, GameEvent event) {
+        game.collectBetsIntoPot();
+        List<String> communityCards = new ArrayList<>(game.getCommunityCards() != null ? game.getCommunityCards() : new ArrayList<>());
+        for (String card : event.getCards()) {
+            String drawn = game.getRandomCard();
+            if (!drawn.equals(card)) {
+                throw new IllegalStateException("Game " + game.getId() + " would deal " + drawn + " instead of " + card);
+            }
+            communityCards.add(card);
+        }
+        game.setCommunityCards(communityCards);
+        game.setGameStatus(event.getGameStatus());
+        game.resetPlayerActions();
+    }
+
+    private static Player findPlayer(Game game, Long userId) {
+        for (Player player : game.getPlayers()) {
+            if (player.getUserId().equals(userId)) {
+                return player;
+            }
+        }
+        throw new IllegalStateException("Player " + userId + " is not in game " + game.getId());
+    }
+
+    GameSnapshot snapshot(Game game) {
+        TableState state = new TableState();
+        state.gameStatus = game.getGameStatus();
+        state.pot = game.getPot();
+        state.callAmount = game.getCallAmount();
+        state.currentPlayerIndex = game.getCurrentPlayerIndex();
+        state.lastRaisePlayerIndex = game.getLastRaisePlayerIndex();
+        state.smallBlindIndex = game.getSmallBlindIndex();
+        state.communityCards = game.getCommunityCards();
+        state.deck = game.getCardDeck();
+        state.players = new ArrayList<>();
+        for (Player player : game.getPlayers()) {
+            SeatState seat = new SeatState();
+            seat.userId = player.getUserId();
+            seat.credit = player.getCredit();
+            seat.currentBet = player.getCurrentBet();
+            seat.totalBets = player.getTotalBets();
+            seat.hasFolded = player.getHasFolded();
+            seat.hasActed = player.getHasActed();
+            seat.lastAction = player.getLastAction();
+            seat.hand = player.getHand();
+            state.players.add(seat);
+        }
+
+        GameSnapshot snapshot = new GameSnapshot();
+        snapshot.setGameId(game.getId());
+        snapshot.setSequence(game.getEventSequence());
+        snapshot.setCreatedAt(LocalDateTime.now());
+        try {
+            snapshot.setState(MAPPER.writeValueAsString(state));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write snapshot of game " + game.getId(), e);
+        }
+        return snapshot;
+    }
+
+    static void restore(Game game, GameSnapshot snapshot) {
+        TableState state;
+        try {
+            state = MAPPER.readValue(snapshot.getState(), TableState.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read snapshot of game " + game.getId(), e);
+        }
+        game.setGameStatus(state.gameStatus);
+        game.setPot(state.pot);
+        game.setCallAmount(state.callAmount);
+        game.setCurrentPlayerIndex(state.currentPlayerIndex);
+        game.setLastRaisePlayerIndex(state.lastRaisePlayerIndex);
+        game.setSmallBlindIndex(state.smallBlindIndex);
+        game.setCommunityCards(state.communityCards);
+        game.setCardDeck(state.deck);
+        for (SeatState seat : state.players) {
+            Player player = findPlayer(game, seat.userId);
+            player.setCredit(seat.credit);
+            player.setCurrentBet(seat.currentBet);
+            player.setTotalBets(seat.totalBets);
+            player.setHasFolded(seat.hasFolded);
+            player.setHasActed(seat.hasActed);
+            player.setLastAction(seat.lastAction);
+            player.setHand(seat.hand);
+        }
+        game.setEventSequence(snapshot.getSequence());
+    }
+
+    static class TableState {
+        public GameStatus gameStatus;
+        public Long pot;
+        public Long callAmount;
+        public int currentPlayerIndex;
+        public int lastRaisePlayerIndex;
+        public int smallBlindIndex;
+        public List<String> communityCards;
+        public List<String> deck;
+        public List<SeatState> players;
+    }
+
+    static class SeatState {
+        public Long userId;
+        public Long credit;
+        public Long currentBet;
+        public Long totalBets;
+        public boolean hasFolded;
+        public boolean hasActed;
+        public PlayerAction lastAction;
+        public List<String> hand;
+    }
+}
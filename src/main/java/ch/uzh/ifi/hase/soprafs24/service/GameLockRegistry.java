@@ -0,0 +1,87 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-game locks for the operations that change a game. Games are mapped onto a fixed number of
+ * striped locks, so the registry never grows, different tables rarely share a lock, and the
+ * operations of one table run one after the other.
+ *
+ * Inside a transaction the lock is kept until the transaction has completed, otherwise the next
+ * operation on the table could read the state from before the commit.
+ */
+@Service
+public class GameLockRegistry {
+
+    static final int DEFAULT_STRIPES = 256;
+
+    private final ReentrantLock[] stripes;
+
+    public GameLockRegistry() {
+        this(DEFAULT_STRIPES);
+    }
+
+    @Autowired
+    public GameLockRegistry(@Value("${games.lock-stripes:256}") int stripes) {
+        // Round up to a power of two so a stripe is picked with a mask
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the given game until the returned handle is closed, or, inside a transaction,
+     * until the transaction has completed.
+     */
+    public Held lock(Long gameId) {
+        ReentrantLock lock = lockFor(gameId);
+        lock.lock();
+        return new Held(lock);
+    }
+
+    ReentrantLock lockFor(Long gameId) {
+        int hash = gameId != null ? Long.hashCode(gameId) : 0;
+        hash ^= hash >>> 16;
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    public static final class Held implements AutoCloseable {
+        private final ReentrantLock lock;
+        private boolean closed;
+
+        private Held(ReentrantLock lock) {
+            this.lock = lock;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                // Completion runs on the thread that holds the lock
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        lock.unlock();
+                    }
+                });
+            } else {
+                lock.unlock();
+            }
+        }
+    }
+}
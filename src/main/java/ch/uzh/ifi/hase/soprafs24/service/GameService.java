@@ -1,7 +1,10 @@
 package ch.uzh.ifi.hase.soprafs24.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -10,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -22,18 +26,25 @@ import javax.transaction.Transactional;
 
 import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
 import ch.uzh.ifi.hase.soprafs24.constant.Card;
+import ch.uzh.ifi.hase.soprafs24.constant.CardSet;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.GameHistory;
 import ch.uzh.ifi.hase.soprafs24.entity.Player;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.helpers.HandEvaluator;
+import ch.uzh.ifi.hase.soprafs24.helpers.OddsCache;
 import ch.uzh.ifi.hase.soprafs24.helpers.OddsCalculator;
+import ch.uzh.ifi.hase.soprafs24.helpers.OddsResult;
 import ch.uzh.ifi.hase.soprafs24.helpers.PokerHelperPromptGenerator;
 import ch.uzh.ifi.hase.soprafs24.helpers.SecretManagerHelper;
+import ch.uzh.ifi.hase.soprafs24.repository.GameHeader;
 import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.PlayerRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
 import ch.uzh.ifi.hase.soprafs24.constant.PlayerAction;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.LeaderboardEntryDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyGameDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyPageDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.UserStatisticsDTO;
 import ch.uzh.ifi.hase.soprafs24.service.Authenticator;
 
@@ -41,6 +52,11 @@ import ch.uzh.ifi.hase.soprafs24.service.Authenticator;
 @Transactional
 public class GameService {
 
+    static final int MAX_LOBBY_PAGE_SIZE = 100;
+    static final int QUICK_SEAT_ATTEMPTS = 5;
+
+    private final Logger log = LoggerFactory.getLogger(GameService.class);
+
     private final GameRepository gameRepository;
     private final UserRepository userRepository;
     private final PlayerRepository playerRepository;
@@ -50,6 +66,50 @@ public class GameService {
     
     @Autowired
     private GameHistoryService gameHistoryService;
+
+    // Split odds simulations across the ForkJoin pool instead of running them on the request thread
+    @Value("${odds.parallel:true}")
+    private boolean parallelOdds = true;
+
+    // Adaptive sampling stops at this 95% confidence half-width or when the time budget is used up
+    @Value("${odds.target-error:0.01}")
+    private double oddsTargetError = 0.01;
+
+    @Value("${odds.time-budget-ms:200}")
+    private long oddsTimeBudgetMillis = 200;
+
+    @Autowired
+    private OddsCache oddsCache = new OddsCache();
+
+    @Autowired
+    private EquityPrecomputeService equityPrecomputeService = new EquityPrecomputeService();
+
+    @Autowired
+    private TableEngine tableEngine = new TableEngine();
+
+    // Operations that change a game run one at a time per game, different games run in parallel
+    @Autowired
+    private GameLockRegistry gameLocks = new GameLockRegistry();
+
+    // Runs the commands that change a game again when they lost a race on the game's version
+    @Autowired
+    private OptimisticRetry optimisticRetry = new OptimisticRetry();
+
+    // Logs the actions of resident tables so a crash before the next write loses nothing
+    @Autowired
+    private GameEventService gameEventService = new GameEventService();
+
+    // Tables that can be joined right now, for quick seating
+    @Autowired
+    private LobbyIndex lobbyIndex = new LobbyIndex();
+
+    // Pushes committed changes to the clients watching a game
+    @Autowired
+    private GameStateBroadcaster gameStateBroadcaster = new GameStateBroadcaster();
+
+    // State version per game, answers polls that have the current state without loading the game
+    @Autowired
+    private GameStateVersions gameStateVersions = new GameStateVersions();
     
     @Autowired
     public GameService(@Qualifier("gameRepository") GameRepository gameRepository,
@@ -89,6 +149,7 @@ public class GameService {
         // Save the game to the database
         newgame = gameRepository.save(newgame);
         gameRepository.flush();
+        lobbyIndex.update(newgame);
 
         return newgame;
     }
@@ -130,33 +191,70 @@ public class GameService {
         game.setCommunityCards(new ArrayList<>());
     }
 
-    public synchronized void joinGame(Long gameId, String userToken, String password){
-        // Validate the token and find the user
-        authenticator.checkTokenValidity(userToken);
-        User user = userRepository.findByToken(userToken);
-        if (user == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
-        }
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void joinGame(Long gameId, String userToken, String password){
+        optimisticRetry.run(() -> {
+            joinGameOnce(gameId, userToken, password);
+            return null;
+        });
+    }
+
+    private void joinGameOnce(Long gameId, String userToken, String password){
+        try (GameLockRegistry.Held held = gameLocks.lock(gameId)) {
+            // Validate the token and find the user
+            authenticator.checkTokenValidity(userToken);
+            User user = userRepository.findByToken(userToken);
+            if (user == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+            }
         
-        // Find the game and validate it exists
-        Game game = gameRepository.findByid(gameId);
-        if (game == null || game.getStatus() == GameStatus.ARCHIVED) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
-        }
+            // Find the game and validate it exists
+            Game game = releaseTable(gameId);
+            if (game == null || game.getStatus() == GameStatus.ARCHIVED) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
         
-        // Validate game join conditions
-        validateGameJoinConditions(game, user, password);
+            // Validate game join conditions
+            validateGameJoinConditions(game, user, password);
         
-        // Add user as a player if not already in the game
-        boolean wasAdded = addUserAsPlayer(user, game);
+            // Add user as a player if not already in the game
+            boolean wasAdded = addUserAsPlayer(user, game);
         
-        // Make sure to save the game if user was added
-        if (wasAdded) {
-            gameRepository.save(game);
-            gameRepository.flush();
+            // Make sure to save the game if user was added
+            if (wasAdded) {
+                gameRepository.save(game);
+                gameRepository.flush();
+                lobbyIndex.update(game);
+                stateChanged(game);
+            }
         }
     }
     
+    /**
+     * Seats the user at the best open public table for the given stakes (null matches any), see LobbyIndex.
+     * A table that filled up or started since it was indexed is dropped from the index and the next one is tried.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Game quickSeat(String userToken, Integer smallBlind, Integer bigBlind) {
+        authenticator.checkTokenValidity(userToken);
+        for (int attempt = 0; attempt < QUICK_SEAT_ATTEMPTS; attempt++) {
+            Long gameId = lobbyIndex.findBestTable(smallBlind, bigBlind);
+            if (gameId == null) {
+                break;
+            }
+            try {
+                joinGame(gameId, userToken, null);
+                return getGameById(gameId, userToken);
+            } catch (ResponseStatusException e) {
+                if (e.getStatus() != HttpStatus.FORBIDDEN && e.getStatus() != HttpStatus.NOT_FOUND) {
+                    throw e;
+                }
+                lobbyIndex.remove(gameId);
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No open table found");
+    }
+
     /**
      * Validates conditions for joining a game
      */
@@ -217,20 +315,40 @@ public class GameService {
         // Check if the token is valid
         authenticator.checkTokenValidity(token);
 
-        List<Game> allGames = gameRepository.findAll();
-        List<Game> publicGames = new ArrayList<>();
+        // Filtered by the database, archived and private games are never loaded
+        return gameRepository.findByIsPublicTrueAndGameStatusNot(GameStatus.ARCHIVED);
+    }
 
-        for (Game game : allGames) {
-            if (game.getIsPublic() && game.getGameStatus() != GameStatus.ARCHIVED) {
-                publicGames.add(game);
-            }
-        }
-        return publicGames;
+    /**
+     * One page of the lobby, see GameRepository#findLobbyPage. Filters that are null are not applied.
+     * @param afterId id of the last game of the previous page, null for the first page
+     */
+    public LobbyPageDTO getLobbyPage(String token, Long afterId, int size, Integer minSmallBlind, Integer maxSmallBlind,
+                                     Integer minBigBlind, Integer maxBigBlind, Integer minOpenSeats, GameStatus status) {
+        authenticator.checkTokenValidity(token);
+
+        int pageSize = Math.min(Math.max(size, 1), MAX_LOBBY_PAGE_SIZE);
+        long after = afterId != null ? afterId : 0L;
+        int minSmall = minSmallBlind != null ? minSmallBlind : 0;
+        int maxSmall = maxSmallBlind != null ? maxSmallBlind : Integer.MAX_VALUE;
+        int minBig = minBigBlind != null ? minBigBlind : 0;
+        int maxBig = maxBigBlind != null ? maxBigBlind : Integer.MAX_VALUE;
+        int openSeats = minOpenSeats != null ? minOpenSeats : 0;
+        // Separate queries, a null enum parameter is not reliably bound by every Hibernate / database
+        List<LobbyGameDTO> games = status == null
+                ? gameRepository.findLobbyPage(after, minSmall, maxSmall, minBig, maxBig, openSeats,
+                        PageRequest.of(0, pageSize))
+                : gameRepository.findLobbyPageByStatus(after, minSmall, maxSmall, minBig, maxBig, openSeats, status,
+                        PageRequest.of(0, pageSize));
+
+        // A full page may be followed by another one
+        Long nextAfter = games.size() == pageSize ? games.get(games.size() - 1).getId() : null;
+        return new LobbyPageDTO(games, nextAfter);
     }
     
     public Game getGameById(Long id, String authenticatorToken) {
 
-        Game game = gameRepository.findByid(id);
+        Game game = findGame(id);
         if (game == null || game.getStatus() == GameStatus.ARCHIVED) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
         }
@@ -252,111 +370,227 @@ public class GameService {
     }
 
 
-    public Game startRound(Long gameId, String token) {
-        // Validate token and get game
-        authenticator.checkTokenValidity(token);
-        Game game = gameRepository.findByid(gameId);
-        if (game == null) {
+    /**
+     * Opens a stream of the game's state for a client that may see the game (see getGameById). The first
+     * event is the current state, then every committed change follows.
+     */
+    public SseEmitter subscribeToGame(Long gameId, String authenticatorToken) {
+        try (GameLockRegistry.Held held = gameLocks.lock(gameId)) {
+            Game game = getGameById(gameId, authenticatorToken);
+            return gameStateBroadcaster.subscribe(gameId, game);
+        }
+    }
+
+    /**
+     * Same access checks as {@link #getGameById}, but only loads the game's header and asks the database
+     * for the seat instead of loading the table. Creator, visibility, archiving and seats are always
+     * written right away, so the stored values are current even while the table is in memory.
+     */
+    public GameHeader getGameHeader(Long id, String authenticatorToken) {
+        GameHeader header = gameRepository.findTableHeaderById(id);
+        if (header == null || header.getGameStatus() == GameStatus.ARCHIVED) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
         }
 
-        // Reset game state
-        game.setPot(0L);
-        game.setCallAmount(0L);
-        game.setGameStatus(GameStatus.READY);
-        game.setCommunityCards(new ArrayList<>());
-        game.setCurrentPlayerIndex(0);
-        game.setLastRaisePlayerIndex(-1);
+        if (!header.getIsPublic()) {
+            User user = userRepository.findByToken(authenticatorToken);
+            if (user == null || !playerRepository.existsByGame_IdAndUserId(id, user.getId())) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Game is private. Entry to game DENIED, because Token does not match any player in game.");
+            }
+        }
+        return header;
+    }
 
-        game.rotateBlinds();
+    /**
+     * The ETag of the game's current state, see GameStateVersions. Read it before loading the game.
+     */
+    public String getGameStateTag(Long gameId) {
+        return gameStateVersions.etag(gameId);
+    }
 
-        // Reset player states while preserving credits
-        for (Player player : game.getPlayers()) {
-            player.setHand(new ArrayList<>());
-            player.setCurrentBet(0L);
-            player.setHasFolded(false);
-            player.setHasActed(false);
-            player.setLastAction(null);
-            playerRepository.save(player);
+    /**
+     * Whether the client already has the state with the given tag. Checks access on the game's header
+     * only, so a poll of an unchanged game neither loads the table nor maps it.
+     */
+    public boolean isGameStateCurrent(Long gameId, String authenticatorToken, String etag, String ifNoneMatch) {
+        if (!GameStateVersions.matches(etag, ifNoneMatch)) {
+            return false;
         }
+        getGameHeader(gameId, authenticatorToken);
+        return true;
+    }
 
-        // Save game state
-        game = gameRepository.save(game);
-        gameRepository.flush();
 
-        return game;
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Game startRound(Long gameId, String token) {
+        return optimisticRetry.run(() -> startRoundOnce(gameId, token));
+    }
+
+    private Game startRoundOnce(Long gameId, String token) {
+        try (GameLockRegistry.Held held = gameLocks.lock(gameId)) {
+            // Validate token and get game
+            authenticator.checkTokenValidity(token);
+            Game game = releaseTable(gameId);
+            if (game == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
+
+            // Reset game state
+            game.setPot(0L);
+            game.setCallAmount(0L);
+            game.setGameStatus(GameStatus.READY);
+            game.setCommunityCards(new ArrayList<>());
+            game.setCurrentPlayerIndex(0);
+            game.setLastRaisePlayerIndex(-1);
+
+            game.rotateBlinds();
+
+            // Reset player states while preserving credits
+            for (Player player : game.getPlayers()) {
+                player.setHand(new ArrayList<>());
+                player.setCurrentBet(0L);
+                player.setHasFolded(false);
+                player.setHasActed(false);
+                player.setLastAction(null);
+            }
+
+            // Save game state, the players are cascaded and written in the same batch
+            game = gameRepository.save(game);
+            gameRepository.flush();
+            lobbyIndex.update(game);
+            stateChanged(game);
+
+            return game;
+        }
     }
     
     public Game startPreFlop(Long gameId){
-        Game game = gameRepository.findByid(gameId);
-        if (game == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
-        }
-        if (game.getGameStatus() != GameStatus.READY) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Game is not in ready phase");
-        }
+        try (GameLockRegistry.Held held = gameLocks.lock(gameId)) {
+            Game game = releaseTable(gameId);
+            if (game == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
+            if (game.getGameStatus() != GameStatus.READY) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Game is not in ready phase");
+            }
 
-        game.setGameStatus(GameStatus.PREFLOP);
+            game.setGameStatus(GameStatus.PREFLOP);
         
-        // Give players two cards 
-        for (Player player : game.getPlayers()) {
-            List<String> hand = new ArrayList<>();
-            hand.add(game.getRandomCard());
-            hand.add(game.getRandomCard());
+            // Give players two cards 
+            dealHoleCards(game);
 
-            player.setHand(hand);
-            playerRepository.save(player);
-            playerRepository.flush();
-
-        }
-        gameRepository.save(game);
-        gameRepository.flush();
+            gameRepository.save(game);
+            gameRepository.flush();
+            lobbyIndex.update(game);
+            stateChanged(game);
 
         
-        return game;
+            return game;
+        }
     }
 
     public Game placeCommunityCards(Long gameId){
-        Game game = gameRepository.findByid(gameId);
-        if (game == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
-        }
-
-        if(!(game.getGameStatus() == GameStatus.PREFLOP || game.getGameStatus() == GameStatus.FLOP || game.getGameStatus() == GameStatus.TURN)){
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Game is not in the right phase");
-        }
+        try (GameLockRegistry.Held held = gameLocks.lock(gameId)) {
+            Game game = releaseTable(gameId);
+            if (game == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
 
-        List <String> communityCards = game.getCommunityCards();
-        communityCards.add(game.getRandomCard());
+            if(!(game.getGameStatus() == GameStatus.PREFLOP || game.getGameStatus() == GameStatus.FLOP || game.getGameStatus() == GameStatus.TURN)){
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Game is not in the right phase");
+            }
 
-        if(game.getGameStatus() == GameStatus.PREFLOP){
-            game.setGameStatus(GameStatus.FLOP);
-            communityCards.add(game.getRandomCard());
+            List <String> communityCards = game.getCommunityCards();
             communityCards.add(game.getRandomCard());
-        }
-        else if(game.getGameStatus() == GameStatus.FLOP){
-            game.setGameStatus(GameStatus.TURN);
-        }
-        else{
-            game.setGameStatus(GameStatus.RIVER);
-        }
+
+            if(game.getGameStatus() == GameStatus.PREFLOP){
+                game.setGameStatus(GameStatus.FLOP);
+                communityCards.add(game.getRandomCard());
+                communityCards.add(game.getRandomCard());
+            }
+            else if(game.getGameStatus() == GameStatus.FLOP){
+                game.setGameStatus(GameStatus.TURN);
+            }
+            else{
+                game.setGameStatus(GameStatus.RIVER);
+            }
         
-        game.setCommunityCards(communityCards);
-        gameRepository.save(game);
-        gameRepository.flush();
+            game.setCommunityCards(communityCards);
+            gameRepository.save(game);
+            gameRepository.flush();
+            stateChanged(game);
+            precomputeEquities(game);
         
-        return game;
+            return game;
+        }
     }
 
     /**
      * Process a player action (check, call, bet, raise, fold)
+     * The action is applied to the table's in-memory state, which is written in the background;
+     * the end of a hand is written right away.
      */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public Game processPlayerAction(Long gameId, Long userId, PlayerAction action, Long amount) {
-        Game game = gameRepository.findByid(gameId);
+        // After a conflict the in-memory table is outdated and may hold the failed attempt's changes
+        return optimisticRetry.run(() -> processPlayerActionOnce(gameId, userId, action, amount),
+                () -> tableEngine.discard(gameId));
+    }
+
+    private Game processPlayerActionOnce(Long gameId, Long userId, PlayerAction action, Long amount) {
+        try (GameLockRegistry.Held held = gameLocks.lock(gameId)) {
+            // The resident game stays with the engine, the caller gets a copy of the new state
+            Game game = tableEngine.update(gameId, this::loadTable,
+                    table -> applyPlayerAction(table, userId, action, amount).copy());
+            if (game.getGameStatus() == GameStatus.GAMEOVER) {
+                // The hand is written in this transaction, the events of the hand are no longer needed
+                tableEngine.release(gameId);
+                gameEventService.prune(gameId, game.getEventSequence());
+                equityPrecomputeService.clearGame(gameId);
+            }
+            stateChanged(game);
+            return game;
+        }
+    }
+
+    /**
+     * Loads a game to keep it in memory. The players are fetched with the game, the resident game
+     * outlives the session it was loaded in.
+     */
+    private Game loadTable(Long gameId) {
+        Game game = loadStoredGame(gameId);
         if (game == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
         }
-        
+        return game;
+    }
+
+    /**
+     * Writes the in-memory table and loads the stored game, for operations that change the game in the
+     * database. If the operation is rejected and its transaction rolls back, the table is kept in memory.
+     */
+    private Game releaseTable(Long gameId) {
+        tableEngine.release(gameId);
+        return loadStoredGame(gameId);
+    }
+
+    /**
+     * The stored game with the actions that were logged after it was last written applied, null if there is no such game.
+     */
+    private Game loadStoredGame(Long gameId) {
+        return gameEventService.replay(gameRepository.findTableStateById(gameId));
+    }
+
+    /**
+     * A copy of the in-memory state of a game if it is being played, otherwise the stored one.
+     * For reading only, operations that change the game release the table and load it instead.
+     */
+    private Game findGame(Long gameId) {
+        Game game = tableEngine.get(gameId);
+        return game != null ? game : gameEventService.replayForReading(gameRepository.findTableStateById(gameId));
+    }
+
+    private Game applyPlayerAction(Game game, Long userId, PlayerAction action, Long amount) {
         // Find the player with the given userId in this game
         Player player = null;
         for (Player p : game.getPlayers()) {
@@ -393,6 +627,8 @@ public class GameService {
             }
         }
         
+        Long creditBefore = player.getCredit();
+
         // Process the action
         switch (action) {
             case CHECK:
@@ -478,14 +714,8 @@ public class GameService {
             default:
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid action");
         }
-        
-        // Save player state
-        playerRepository.save(player);
-        playerRepository.flush();
 
-        // Flush so the current player's action is reflected in the game
-        gameRepository.save(game);
-        gameRepository.flush();
+        gameEventService.recordAction(game, player, action, creditBefore - player.getCredit());
         
         // Check if betting round is complete
         if (game.isBettingRoundComplete()) {
@@ -495,10 +725,6 @@ public class GameService {
             game.moveToNextPlayer();
         }
         
-        // Save game state
-        gameRepository.save(game);
-        gameRepository.flush();
-        
         return game;
     }
     
@@ -532,12 +758,11 @@ public class GameService {
             recordGameResults(game, winners);
             game.setGameStatus(GameStatus.GAMEOVER);
             
-            gameRepository.save(game);
-            gameRepository.flush();
-            
             return; // Exit early since game is over
         }
         
+        int dealtBefore = game.getCommunityCards() != null ? game.getCommunityCards().size() : 0;
+
         // Advance to next game phase
         switch (game.getGameStatus()) {
             case PREFLOP:
@@ -572,7 +797,7 @@ public class GameService {
                 
                 // Determine winner and award pot
                 determineWinnerAndAwardPot(game);
-                endGameAndRecordHistory(game.getId());
+                endGameAndRecordHistory(game);
                 game.setGameStatus(GameStatus.GAMEOVER);
                 break;
                 
@@ -585,8 +810,44 @@ public class GameService {
             game.resetPlayerActions();
         }
 
-        gameRepository.save(game);
-        gameRepository.flush();
+        // A new street was dealt, start computing everyone's odds before they ask for them
+        if (game.getGameStatus() == GameStatus.FLOP || game.getGameStatus() == GameStatus.TURN
+                || game.getGameStatus() == GameStatus.RIVER) {
+            List<String> dealt = game.getCommunityCards();
+            gameEventService.recordDeal(game, dealt.subList(dealtBefore, dealt.size()));
+            precomputeEquities(game);
+        }
+    }
+
+    /**
+     * Submits the win probability of every player still in the hand to the background executor.
+     * The cards are copied here, the background threads never touch the entities.
+     */
+    private void precomputeEquities(Game game) {
+        Long gameId = game.getId();
+        List<String> communityCards = new ArrayList<>(game.getCommunityCards());
+        for (Player player : game.getPlayers()) {
+            if (player.getHasFolded() || player.getHand() == null || player.getHand().size() != 2) {
+                continue;
+            }
+            List<String> playerHand = new ArrayList<>(player.getHand());
+            int numOpponents = countOpponents(game, player.getUserId());
+            equityPrecomputeService.submit(gameId, player.getUserId(), communityCards,
+                    () -> computeWinProbability(gameId, playerHand, communityCards, numOpponents, true));
+        }
+    }
+
+    /**
+     * The number of players the given player is up against: everyone else who has not folded.
+     */
+    private static int countOpponents(Game game, Long userId) {
+        int opponents = 0;
+        for (Player player : game.getPlayers()) {
+            if (!player.getUserId().equals(userId) && !player.getHasFolded()) {
+                opponents++;
+            }
+        }
+        return opponents;
     }
     
     /**
@@ -594,7 +855,7 @@ public class GameService {
      */
     private void determineWinnerAndAwardPot(Game game) {
         // Determine winners based on hand evaluation
-        List<Player> winners = determineWinners(game.getId());
+        List<Player> winners = determineWinners(game);
         
         // Calculate pot share per winner
         Long potPerWinner = game.getPot() / winners.size();
@@ -609,94 +870,104 @@ public class GameService {
     /**
      * Start a new betting round with blinds
      */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public Game startBettingRound(Long gameId) {
-        Game game = gameRepository.findByid(gameId);
-        if (game == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
-        }
-        
-        if (game.getGameStatus() != GameStatus.READY) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Game is not in ready phase");
-        }
+        return optimisticRetry.run(() -> startBettingRoundOnce(gameId));
+    }
+
+    private Game startBettingRoundOnce(Long gameId) {
+        try (GameLockRegistry.Held held = gameLocks.lock(gameId)) {
+            Game game = releaseTable(gameId);
+            if (game == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
         
-        // Set small and big blinds
-        Player smallBlindPlayer = game.getPlayers().get(game.getSmallBlindIndex());
-        Player bigBlindPlayer = game.getPlayers().get(game.getBigBlindIndex());
+            if (game.getGameStatus() != GameStatus.READY) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Game is not in ready phase");
+            }
         
-        // Small blind is typically half the big blind
-        Long smallBlindAmount = 5L; // You might want to make this configurable
-        Long bigBlindAmount = 10L;  // You might want to make this configurable
+            // Set small and big blinds
+            Player smallBlindPlayer = game.getPlayers().get(game.getSmallBlindIndex());
+            Player bigBlindPlayer = game.getPlayers().get(game.getBigBlindIndex());
         
-        // Place small blind
-        if (smallBlindAmount > smallBlindPlayer.getCredit()) {
-            smallBlindAmount = smallBlindPlayer.getCredit(); // All-in
-        }
-        smallBlindPlayer.setCredit(smallBlindPlayer.getCredit() - smallBlindAmount);
-        smallBlindPlayer.setCurrentBet(smallBlindAmount);
-        smallBlindPlayer.setHasActed(true);
+            // Small blind is typically half the big blind
+            Long smallBlindAmount = 5L; // You might want to make this configurable
+            Long bigBlindAmount = 10L;  // You might want to make this configurable
         
-        // Place big blind
-        if (bigBlindAmount > bigBlindPlayer.getCredit()) {
-            bigBlindAmount = bigBlindPlayer.getCredit(); // All-in
-        }
-        bigBlindPlayer.setCredit(bigBlindPlayer.getCredit() - bigBlindAmount);
-        bigBlindPlayer.setCurrentBet(bigBlindAmount);
-        bigBlindPlayer.setHasActed(true);
+            // Place small blind
+            if (smallBlindAmount > smallBlindPlayer.getCredit()) {
+                smallBlindAmount = smallBlindPlayer.getCredit(); // All-in
+            }
+            smallBlindPlayer.setCredit(smallBlindPlayer.getCredit() - smallBlindAmount);
+            smallBlindPlayer.setCurrentBet(smallBlindAmount);
+            smallBlindPlayer.setHasActed(true);
         
-        // Set call amount to big blind
-        game.setCallAmount(bigBlindAmount);
+            // Place big blind
+            if (bigBlindAmount > bigBlindPlayer.getCredit()) {
+                bigBlindAmount = bigBlindPlayer.getCredit(); // All-in
+            }
+            bigBlindPlayer.setCredit(bigBlindPlayer.getCredit() - bigBlindAmount);
+            bigBlindPlayer.setCurrentBet(bigBlindAmount);
+            bigBlindPlayer.setHasActed(true);
         
-        // Set current player to the one after big blind
-        game.setCurrentPlayerIndex((game.getBigBlindIndex() + 1) % game.getPlayers().size());
+            // Set call amount to big blind
+            game.setCallAmount(bigBlindAmount);
         
-        // Set game status to preflop
-        game.setGameStatus(GameStatus.PREFLOP);
+            // Set current player to the one after big blind
+            game.setCurrentPlayerIndex((game.getBigBlindIndex() + 1) % game.getPlayers().size());
         
-        // Save player states
-        playerRepository.save(smallBlindPlayer);
-        playerRepository.save(bigBlindPlayer);
-        playerRepository.flush();
-
-        game.initializeShuffledDeck();
+            // Set game status to preflop
+            game.setGameStatus(GameStatus.PREFLOP);
 
-        // Remove cards from players (violently if needed)
-        for (Player player : game.getPlayers()) {
-            List<String> hand = new ArrayList<>();
-            player.setHand(hand);
-            playerRepository.save(player);
-            playerRepository.flush();
+            // Shuffle and give players two new cards, replacing the ones of the last hand
+            game.initializeShuffledDeck();
+            dealHoleCards(game);
 
+            // Remove community cards
+            game.setCommunityCards(new ArrayList<>());
+        
+            // Everything was prepared in memory, the game and its players are written in one flush
+            gameRepository.save(game);
+            gameRepository.flush();
+            lobbyIndex.update(game);
+            stateChanged(game);
+        
+            return game;
         }
+    }
 
-        // Give players two cards 
+    /**
+     * Deals two cards from the game's deck to every player, in memory only
+     */
+    private void dealHoleCards(Game game) {
         for (Player player : game.getPlayers()) {
             List<String> hand = new ArrayList<>();
             hand.add(game.getRandomCard());
             hand.add(game.getRandomCard());
-
             player.setHand(hand);
-            playerRepository.save(player);
-            playerRepository.flush();
-
         }
-
-        // Remove community cards
-        game.setCommunityCards(new ArrayList<>());
-        
-        // Save game state
-        gameRepository.save(game);
-        gameRepository.flush();
-        
-        return game;
     }
 
     public List<Player> determineWinners(Long gameId) {
-        // Get game and players
-        Game game = gameRepository.findByid(gameId);
-        if (game == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+        try (GameLockRegistry.Held held = gameLocks.lock(gameId)) {
+            Game game = releaseTable(gameId);
+            if (game == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
+
+            List<Player> winners = determineWinners(game);
+            gameRepository.save(game);
+            gameRepository.flush();
+            stateChanged(game);
+
+            return winners;
         }
+    }
 
+    /**
+     * Sets the winners of the hand on the given game, the caller writes it
+     */
+    private List<Player> determineWinners(Game game) {
         List<Player> players = game.getPlayers();
         List<String> communityCards = game.getCommunityCards();
 
@@ -715,28 +986,21 @@ public class GameService {
             List<Player> winners = new ArrayList<>();
             winners.add(lastActivePlayer);
             game.setWinners(winners);
-            
-            gameRepository.save(game);
-            gameRepository.flush();
-            
             return winners;
         }
-        
+
         // If game ended before all community cards were dealt (early fold), 
         // but we still have multiple active players, we need community cards to determine winner
         if (communityCards.size() < 5) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough community cards to determine winner");
         }
 
-        // Convert community cards to Card objects
-        List<Card> communityCardObjects = new ArrayList<>();
-        for (String cardStr : communityCards) {
-            communityCardObjects.add(Card.fromShortString(cardStr));
-        }
+        // Community cards as a bitmask card set, shared by all hands
+        CardSet board = CardSet.fromShortStrings(communityCards);
 
         // Evaluate each player's hand
         List<Player> winners = new ArrayList<>();
-        OddsCalculator.HandValue bestHandValue = null;
+        int bestHandValue = -1;
 
         for (Player player : players) {
             // Skip players who have folded
@@ -744,40 +1008,34 @@ public class GameService {
                 continue;
             }
 
-            // Convert player's hand to Card objects
-            List<Card> playerCards = new ArrayList<>();
-            for (String cardStr : player.getHand()) {
-                playerCards.add(Card.fromShortString(cardStr));
-            }
-
-            // Combine player's cards with community cards
-            List<Card> allCards = new ArrayList<>(playerCards);
-            allCards.addAll(communityCardObjects);
-
-            // Evaluate the hand
-            OddsCalculator.HandValue currentHandValue = OddsCalculator.evaluateHand(allCards);
+            // Combine player's cards with community cards and evaluate the hand
+            int currentHandValue = HandEvaluator.evaluate(board.union(CardSet.fromShortStrings(player.getHand())));
 
             // Compare with best hand so far
-            if (bestHandValue == null || currentHandValue.compareTo(bestHandValue) > 0) {
+            if (currentHandValue > bestHandValue) {
                 // New best hand found
                 winners.clear();
                 winners.add(player);
                 bestHandValue = currentHandValue;
-            } else if (currentHandValue.compareTo(bestHandValue) == 0) {
+            } else if (currentHandValue == bestHandValue) {
                 // Tied with best hand
                 winners.add(player);
             }
         }
 
         game.setWinners(winners);
-        gameRepository.save(game);
-        gameRepository.flush();
-
         return winners;
     }
 
     public double calculateWinProbability(Long gameId, Long userId) {
-        Game game = gameRepository.findByid(gameId);
+        return estimateWinProbability(gameId, userId).getProbability();
+    }
+
+    /**
+     * Win probability of the given player together with its error bound and the number of iterations used
+     */
+    public OddsResult estimateWinProbability(Long gameId, Long userId) {
+        Game game = findGame(gameId);
         if (game == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
         }
@@ -799,6 +1057,21 @@ public class GameService {
         List<String> playerHand = player.getHand();
         List<String> communityCards = game.getCommunityCards();
 
+        // Usually computed in the background when the street was dealt
+        OddsResult precomputed = equityPrecomputeService.get(gameId, userId, communityCards);
+        if (precomputed != null) {
+            return precomputed;
+        }
+
+        return computeWinProbability(gameId, playerHand, communityCards, countOpponents(game, userId), false);
+    }
+
+    /**
+     * @param background computed ahead of the request; such a computation may be cancelled halfway, so it
+     *                   reads the odds cache but never stores in it
+     */
+    private OddsResult computeWinProbability(Long gameId, List<String> playerHand, List<String> communityCards,
+                                             int numOpponents, boolean background) {
         // Convert cards to Card objects
         List<Card> playerCards = new ArrayList<>();
         for (String cardStr : playerHand) {
@@ -810,97 +1083,112 @@ public class GameService {
             communityCardObjects.add(Card.fromShortString(cardStr));
         }
 
-        // Calculate win probability using OddsCalculator
-        return OddsCalculator.calculateWinProbability(playerCards, communityCardObjects, game.getPlayers().size());
+        if (background) {
+            OddsResult cached = oddsCache.peek(playerCards, communityCardObjects, numOpponents);
+            return cached != null ? cached : OddsCalculator.estimateWinProbability(playerCards, communityCardObjects,
+                    numOpponents, oddsTargetError, oddsTimeBudgetMillis, false);
+        }
+
+        // Calculate win probability using OddsCalculator, unless the same spot was asked for on this street.
+        // A result that missed the target error because the time budget ran out is not kept
+        return oddsCache.get(gameId, playerCards, communityCardObjects, numOpponents, oddsTargetError,
+                () -> OddsCalculator.estimateWinProbability(playerCards, communityCardObjects, numOpponents,
+                        oddsTargetError, oddsTimeBudgetMillis, parallelOdds));
     }
 
     public Game deleteGame(Long gameId, String token){
-        Game game = gameRepository.findByid(gameId);
-        if (game == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
-        }
+        try (GameLockRegistry.Held held = gameLocks.lock(gameId)) {
+            Game game = releaseTable(gameId);
+            if (game == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
 
-        // Check if the token is the same as the creator of the game in case the token is not empty
-        long gameCreatorId = game.getCreatorId();
+            // Check if the token is the same as the creator of the game in case the token is not empty
+            long gameCreatorId = game.getCreatorId();
 
-        User gameCreator = userRepository.findByid(gameCreatorId);
+            User gameCreator = userRepository.findByid(gameCreatorId);
 
-        if(!(token.isEmpty()) && !gameCreator.getToken().equals(token)){
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not the creator of the game. You cannot delete the game.");
-        }
+            if(!(token.isEmpty()) && !gameCreator.getToken().equals(token)){
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not the creator of the game. You cannot delete the game.");
+            }
 
-        // Clear winners first to avoid foreign key constraint issues
-        game.getWinners().clear();
+            // Clear winners first to avoid foreign key constraint issues
+            game.getWinners().clear();
         
-        // Then clear players
-        game.getPlayers().clear();
+            // Then clear players
+            game.getPlayers().clear();
 
-        // Archive the game
-        game.setStatus(GameStatus.ARCHIVED);
-        gameRepository.save(game);
-        gameRepository.flush();
-        return game;
+            // Archive the game
+            game.setStatus(GameStatus.ARCHIVED);
+            oddsCache.invalidateGame(gameId);
+            equityPrecomputeService.clearGame(gameId);
+            gameEventService.deleteStream(gameId);
+            gameRepository.save(game);
+            gameRepository.flush();
+            lobbyIndex.update(game);
+            // Watchers get the archived state, the version is not needed anymore
+            gameStateBroadcaster.publish(game);
+            gameStateVersions.remove(gameId);
+            return game;
+        }
     }
 
-    public synchronized void leaveGame(Long gameId, String userToken) {
+    public void leaveGame(Long gameId, String userToken) {
+        try (GameLockRegistry.Held held = gameLocks.lock(gameId)) {
 
-        // authenticate & resolve user
-        authenticator.checkTokenValidity(userToken);
-        User user = userRepository.findByToken(userToken);
-        if (user == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
-        }
+            // authenticate & resolve user
+            authenticator.checkTokenValidity(userToken);
+            User user = userRepository.findByToken(userToken);
+            if (user == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+            }
 
-        // load game
-        Game game = gameRepository.findByid(gameId);
-        if (game == null || game.getStatus() == GameStatus.ARCHIVED) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
-        }
-        if (game.getStatus() != GameStatus.GAMEOVER){
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not allowed to leave game at this phase"); //New condition added 
-        }
+            // load game
+            Game game = releaseTable(gameId);
+            if (game == null || game.getStatus() == GameStatus.ARCHIVED) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
+            if (game.getStatus() != GameStatus.GAMEOVER){
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not allowed to leave game at this phase"); //New condition added 
+            }
 
-        // locate the player instance that belongs to this user
-        Player playerToRemove = null;
-        for (Player p : game.getPlayers()) {
-            if (p.getUserId().equals(user.getId())) {
-                playerToRemove = p;
-                break;
+            // locate the player instance that belongs to this user
+            Player playerToRemove = null;
+            for (Player p : game.getPlayers()) {
+                if (p.getUserId().equals(user.getId())) {
+                    playerToRemove = p;
+                    break;
+                }
+            }
+            if (playerToRemove == null) {
+                throw new ResponseStatusException(
+                    HttpStatus.NOT_FOUND, "Player not part of this game");
             }
-        }
-        if (playerToRemove == null) {
-            throw new ResponseStatusException(
-                HttpStatus.NOT_FOUND, "Player not part of this game");
-        }
 
-        // remove player from game & DB
-        game.removePlayer(playerToRemove);
+            // remove player from game & DB
+            game.removePlayer(playerToRemove);
         
 
-        // persist updated game state
-        gameRepository.save(game);
-        gameRepository.flush();
-    }
-
-    public String getHandDescription(Player player, List<String> communityCards) {
-        // Convert player's hand to Card objects
-        List<Card> playerCards = new ArrayList<>();
-        for (String cardStr : player.getHand()) {
-            playerCards.add(Card.fromShortString(cardStr));
+            // persist updated game state
+            gameRepository.save(game);
+            gameRepository.flush();
+            lobbyIndex.update(game);
+            stateChanged(game);
         }
+    }
 
-        // Convert community cards to Card objects
-        List<Card> communityCardObjects = new ArrayList<>();
-        for (String cardStr : communityCards) {
-            communityCardObjects.add(Card.fromShortString(cardStr));
-        }
+    // Called under the game's lock after every change of a game that clients can see
+    private void stateChanged(Game game) {
+        gameStateVersions.bump(game.getId());
+        gameStateBroadcaster.publish(game);
+    }
 
-        // Combine all cards
-        List<Card> allCards = new ArrayList<>(playerCards);
-        allCards.addAll(communityCardObjects);
+    public String getHandDescription(Player player, List<String> communityCards) {
+        // Combine the player's cards with the community cards
+        CardSet allCards = CardSet.fromShortStrings(player.getHand()).union(CardSet.fromShortStrings(communityCards));
 
         // Evaluate the hand
-        OddsCalculator.HandValue handValue = OddsCalculator.evaluateHand(allCards);
+        OddsCalculator.HandValue handValue = new OddsCalculator.HandValue(HandEvaluator.evaluate(allCards));
         
         // Return hand description
         return handValue.toString();
@@ -918,7 +1206,7 @@ public class GameService {
         String geminiApiKey = secretManagerHelper.getGeminiApiKey();
         
         // Get the game state
-        Game game = gameRepository.findByid(gameId);
+        Game game = findGame(gameId);
         if (game == null || game.getStatus() == GameStatus.ARCHIVED) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
         }
@@ -1048,19 +1336,28 @@ public class GameService {
      * @param gameId - ID of the game to end
      */
     public void endGameAndRecordHistory(Long gameId) {
-        Game game = gameRepository.findByid(gameId);
-        if (game == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+        try (GameLockRegistry.Held held = gameLocks.lock(gameId)) {
+            Game game = releaseTable(gameId);
+            if (game == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
+
+            endGameAndRecordHistory(game);
+
+            // Update game status to completed
+            //game.setGameStatus(GameStatus.ARCHIVED);
+            gameRepository.save(game);
+            gameRepository.flush();
+            stateChanged(game);
         }
-        
-        // Determine winners and record game results
-        List<Player> winners = determineWinners(gameId);
+    }
+
+    /**
+     * Determines the winners and records the game results, the caller writes the game
+     */
+    private void endGameAndRecordHistory(Game game) {
+        List<Player> winners = determineWinners(game);
         recordGameResults(game, winners);
-        
-        // Update game status to completed
-        //game.setGameStatus(GameStatus.ARCHIVED);
-        gameRepository.save(game);
-        gameRepository.flush();
     }
     
     /**
@@ -1071,8 +1368,8 @@ public class GameService {
         List<Long> allPlayerIds = game.getPlayers().stream()
                 .map(Player::getUserId)
                 .collect(Collectors.toList());
-        
-        System.out.println("players: " + allPlayerIds);
+
+        log.debug("Recording the results of game {} for players {}", game.getId(), allPlayerIds);
         // Calculate winnings for each player
         Long potPerWinner = game.getPot() / winners.size();
         
@@ -1095,8 +1392,8 @@ public class GameService {
                 winnings = - player.getTotalBets();
             }
 
-            System.out.println("winnings: " + winnings);
-            
+            log.debug("Player {} won {} in game {}", player.getUserId(), winnings, game.getId());
+
             // Record the game result
             gameHistoryService.recordGameResult(
                     player.getUserId(),
@@ -0,0 +1,215 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.rest.mapper.DTOMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes the state of a game to the clients that watch it (GET /games/{gameId}/events) whenever a
+ * change of the game was committed, instead of every client polling GET /games/{gameId}.
+ *
+ * A state is serialized once and the same JSON is queued for every subscriber. Each subscriber has a
+ * bounded queue that a small pool of sender threads drains, so a slow client never holds up the
+ * game or the others. When a subscriber's queue is full, the updates it has not received yet are
+ * dropped and replaced by the latest state as a "snapshot" event; every update is the full state,
+ * so the client is up to date again with it.
+ */
+@Service
+public class GameStateBroadcaster {
+
+    static final int DEFAULT_BUFFER_SIZE = 16;
+    static final long DEFAULT_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    static final String STATE_EVENT = "state";
+    static final String SNAPSHOT_EVENT = "snapshot";
+
+    private final Logger log = LoggerFactory.getLogger(GameStateBroadcaster.class);
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final Executor senders;
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    public GameStateBroadcaster() {
+        this(new ObjectMapper(), 1, DEFAULT_BUFFER_SIZE, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    @Autowired
+    public GameStateBroadcaster(ObjectMapper objectMapper,
+                                @Value("${games.events.threads:2}") int threads,
+                                @Value("${games.events.buffer-size:16}") int bufferSize,
+                                @Value("${games.events.timeout-ms:1800000}") long timeoutMillis) {
+        this(objectMapper, Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "game-events");
+            thread.setDaemon(true);
+            return thread;
+        }), bufferSize, timeoutMillis);
+    }
+
+    GameStateBroadcaster(ObjectMapper objectMapper, Executor senders, int bufferSize, long timeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.senders = senders;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Opens a stream for a game that starts with the given current state. Call it while holding the
+     * game's lock, so no update can be published between reading the state and subscribing.
+     */
+    public SseEmitter subscribe(Long gameId, Game current) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = register(gameId,
+                (name, json) -> emitter.send(SseEmitter.event().name(name).data(json)));
+        emitter.onCompletion(() -> unregister(gameId, subscriber));
+        emitter.onTimeout(() -> unregister(gameId, subscriber));
+        emitter.onError(e -> unregister(gameId, subscriber));
+        subscriber.offer(SNAPSHOT_EVENT, toJson(current));
+        return emitter;
+    }
+
+    /**
+     * Publishes the state of a game to its subscribers once the current transaction has committed,
+     * or right away outside of a transaction. The state is taken now, call it while holding the game's lock.
+     */
+    public void publish(Game game) {
+        if (game == null || !hasSubscribers(game.getId())) {
+            return;
+        }
+        publish(game.getId(), toJson(game));
+    }
+
+    void publish(Long gameId, String json) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(gameId, json);
+                }
+            });
+        } else {
+            deliver(gameId, json);
+        }
+    }
+
+    private void deliver(Long gameId, String json) {
+        Set<Subscriber> watchers = subscribers.get(gameId);
+        if (watchers != null) {
+            for (Subscriber subscriber : watchers) {
+                subscriber.offer(STATE_EVENT, json);
+            }
+        }
+    }
+
+    public boolean hasSubscribers(Long gameId) {
+        Set<Subscriber> watchers = gameId != null ? subscribers.get(gameId) : null;
+        return watchers != null && !watchers.isEmpty();
+    }
+
+    Subscriber register(Long gameId, Sink sink) {
+        Subscriber subscriber = new Subscriber(gameId, sink);
+        subscribers.computeIfAbsent(gameId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        return subscriber;
+    }
+
+    void unregister(Long gameId, Subscriber subscriber) {
+        subscribers.computeIfPresent(gameId, (id, watchers) -> {
+            watchers.remove(subscriber);
+            return watchers.isEmpty() ? null : watchers;
+        });
+    }
+
+    private String toJson(Game game) {
+        try {
+            return objectMapper.writeValueAsString(DTOMapper.INSTANCE.convertEntityToGameGetDTO(game));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize game " + game.getId(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (senders instanceof ExecutorService) {
+            ((ExecutorService) senders).shutdownNow();
+        }
+    }
+
+    /**
+     * Where a subscriber's events go, the SSE connection outside of tests
+     */
+    interface Sink {
+        void send(String name, String json) throws IOException;
+    }
+
+    final class Subscriber {
+        private final Long gameId;
+        private final Sink sink;
+        private final Queue<String[]> pending;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Subscriber(Long gameId, Sink sink) {
+            this.gameId = gameId;
+            this.sink = sink;
+            this.pending = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void offer(String name, String json) {
+            synchronized (pending) {
+                if (!pending.offer(new String[] {name, json})) {
+                    // Too far behind, skip to the latest state
+                    pending.clear();
+                    pending.offer(new String[] {SNAPSHOT_EVENT, json});
+                }
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                String[] event;
+                synchronized (pending) {
+                    event = pending.poll();
+                    if (event == null) {
+                        scheduled.set(false);
+                        return;
+                    }
+                }
+                try {
+                    sink.send(event[0], event[1]);
+                } catch (IOException | RuntimeException e) {
+                    // The client is gone, the emitter reports its completion as well
+                    log.debug("Dropping subscriber of game {}: {}", gameId, e.getMessage());
+                    unregister(gameId, this);
+                    synchronized (pending) {
+                        pending.clear();
+                        scheduled.set(false);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
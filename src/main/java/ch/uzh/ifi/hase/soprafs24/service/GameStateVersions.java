@@ -0,0 +1,93 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory state version of every game, bumped by GameService whenever a change of the game commits.
+ * GET /games/{gameId} sends it as the ETag, so a client that polls gets 304 Not Modified from a map
+ * lookup while nothing changed, instead of loading the table and mapping it again.
+ *
+ * The versions start over with the application; the start time is part of the tag, so a tag from
+ * before a restart never matches. A version is only bumped after the commit and read before the game
+ * is loaded, so a tag can be older than the state it is sent with, but never newer.
+ */
+@Service
+public class GameStateVersions {
+
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    public long current(Long gameId) {
+        AtomicLong version = versions.get(gameId);
+        return version != null ? version.get() : 0L;
+    }
+
+    /**
+     * Bumps the version of a game once the current transaction has committed, or right away outside of a transaction.
+     */
+    public void bump(Long gameId) {
+        if (gameId != null) {
+            afterCommit(() -> versions.computeIfAbsent(gameId, id -> new AtomicLong()).incrementAndGet());
+        }
+    }
+
+    /**
+     * Forgets the version of an archived game once the current transaction has committed. Polls of an
+     * archived game are answered with 404 before their tag is compared, so it is not needed anymore.
+     */
+    public void remove(Long gameId) {
+        if (gameId != null) {
+            afterCommit(() -> versions.remove(gameId));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    int size() {
+        return versions.size();
+    }
+
+    /**
+     * The current version of a game as a strong ETag, e.g. "kq3x1c2a-7"
+     */
+    public String etag(Long gameId) {
+        return "\"" + epoch + "-" + current(gameId) + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header holds the given tag (or *).
+     */
+    public static boolean matches(String etag, String ifNoneMatch) {
+        if (etag == null || ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            // If-None-Match compares weakly, clients and proxies may have marked the tag as weak
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag) || candidate.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,131 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory index of the tables a player can join right now: public, waiting for the next hand
+ * (READY) and with a free seat. The tables are kept sorted by (big blind, small blind, free seats),
+ * so the best table for some stakes is found with one seek instead of a scan over all games.
+ *
+ * GameService updates the index whenever it writes a game whose seats or status changed. The index
+ * is a hint only, joining still validates against the stored game.
+ */
+@Service
+public class LobbyIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt((Entry entry) -> entry.bigBlind)
+            .thenComparingInt(entry -> entry.smallBlind)
+            .thenComparingInt(entry -> entry.freeSeats)
+            .thenComparingLong(entry -> entry.gameId);
+
+    private final ConcurrentSkipListSet<Entry> openTables = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    // Null without Spring, the index then starts empty
+    private final GameRepository gameRepository;
+
+    public LobbyIndex() {
+        this(null);
+    }
+
+    @Autowired
+    public LobbyIndex(GameRepository gameRepository) {
+        this.gameRepository = gameRepository;
+    }
+
+    /**
+     * Fills the index with the games that were created before the application started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (gameRepository == null) {
+            return;
+        }
+        for (Game game : gameRepository.findByIsPublicTrueAndGameStatusNot(GameStatus.ARCHIVED)) {
+            update(game);
+        }
+    }
+
+    /**
+     * Adds, moves or removes a game after its seats, status or visibility changed.
+     */
+    public void update(Game game) {
+        if (game == null || game.getId() == null) {
+            return;
+        }
+        int freeSeats = game.getMaximalPlayers() - game.getNumberOfPlayers();
+        boolean joinable = Boolean.TRUE.equals(game.getIsPublic()) && freeSeats > 0
+                && (game.getGameStatus() == null || game.getGameStatus() == GameStatus.READY);
+        Entry entry = joinable ? new Entry(game.getId(), game.getSmallBlind(), game.getBigBlind(), freeSeats) : null;
+        // compute runs one update per game at a time, so the set never holds two entries of a game
+        entries.compute(game.getId(), (id, old) -> {
+            if (old != null) {
+                openTables.remove(old);
+            }
+            if (entry != null) {
+                openTables.add(entry);
+            }
+            return entry;
+        });
+    }
+
+    public void remove(Long gameId) {
+        entries.computeIfPresent(gameId, (id, old) -> {
+            openTables.remove(old);
+            return null;
+        });
+    }
+
+    /**
+     * The open table with the given stakes that has the fewest free seats, so tables fill up before new ones
+     * are started. Stakes that are null match any; without stakes the lowest stakes are picked. A big blind
+     * is a seek, only a small blind on its own has to walk the tables in order.
+     * @return the game id, or null if no table matches
+     */
+    public Long findBestTable(Integer smallBlind, Integer bigBlind) {
+        if (bigBlind == null) {
+            for (Entry entry : openTables) {
+                if (smallBlind == null || entry.smallBlind == smallBlind) {
+                    return entry.gameId;
+                }
+            }
+            return null;
+        }
+        Entry probe = new Entry(Long.MIN_VALUE, smallBlind != null ? smallBlind : Integer.MIN_VALUE, bigBlind, 1);
+        Entry best = openTables.ceiling(probe);
+        if (best == null || best.bigBlind != bigBlind || (smallBlind != null && best.smallBlind != smallBlind)) {
+            return null;
+        }
+        return best.gameId;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final long gameId;
+        private final int smallBlind;
+        private final int bigBlind;
+        private final int freeSeats;
+
+        Entry(long gameId, int smallBlind, int bigBlind, int freeSeats) {
+            this.gameId = gameId;
+            this.smallBlind = smallBlind;
+            this.bigBlind = bigBlind;
+            this.freeSeats = freeSeats;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.OptimisticLockException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a command in its own transaction and runs it again against fresh state when the transaction
+ * failed because a game or player was changed by someone else in the meantime (their version moved
+ * on). A conflict that persists after the retry budget is reported as 409 Conflict.
+ *
+ * The command has to read everything it needs itself: a rolled back attempt leaves nothing behind,
+ * the transaction manager clears the entity manager on rollback.
+ */
+@Service
+public class OptimisticRetry {
+
+    static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    // Null without Spring, the command then runs without a transaction of its own
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+
+    public OptimisticRetry() {
+        this((TransactionTemplate) null, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    @Autowired
+    public OptimisticRetry(PlatformTransactionManager transactionManager,
+                           @Value("${games.optimistic-attempts:3}") int maxAttempts) {
+        this(new TransactionTemplate(transactionManager), maxAttempts);
+    }
+
+    OptimisticRetry(TransactionTemplate transactionTemplate, int maxAttempts) {
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    public <T> T run(Supplier<T> command) {
+        return run(command, () -> { });
+    }
+
+    /**
+     * @param beforeRetry called after a conflict, before the command runs again, to drop state
+     *                    the command keeps outside the transaction
+     */
+    public <T> T run(Supplier<T> command, Runnable beforeRetry) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate != null ? transactionTemplate.execute(status -> command.get()) : command.get();
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                beforeRetry.run();
+                if (attempt >= maxAttempts) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "The game was changed by someone else at the same time, please try again");
+                }
+            }
+        }
+    }
+
+    static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException || cause instanceof OptimisticLockingFailureException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,295 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.Player;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the live state of the tables that are being played in memory. A resident {@link Game} is the
+ * authoritative state of its table: player actions mutate it one at a time under the table's lock and
+ * only mark it dirty. A background flusher writes dirty tables at a fixed interval, so any number of
+ * actions between two ticks cost a single write; the end of a hand is flushed right away.
+ *
+ * Operations that still work on the database directly (joining, starting a round, ...) release the
+ * table first, which flushes it and drops it from memory. Tables that have not been touched for a
+ * while are dropped by the flusher as well.
+ *
+ * The flusher only writes a table while it holds the game's lock, which commands keep until their
+ * transaction completed. It therefore never writes the changes of a command whose events are not
+ * committed yet; if that transaction rolls back, the table is dropped.
+ */
+@Service
+public class TableEngine {
+
+    static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 500;
+    static final long DEFAULT_IDLE_SECONDS = 600;
+
+    private final Logger log = LoggerFactory.getLogger(TableEngine.class);
+
+    private final Map<Long, Table> tables = new ConcurrentHashMap<>();
+    private final Consumer<Game> persister;
+    private final long idleNanos;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService flusher;
+    private final GameLockRegistry gameLocks;
+
+    /**
+     * Engine without a database, tables are kept in memory but never written.
+     */
+    public TableEngine() {
+        this(game -> { }, 0, TimeUnit.SECONDS.toNanos(DEFAULT_IDLE_SECONDS), System::nanoTime);
+    }
+
+    @Autowired
+    public TableEngine(GameRepository gameRepository, GameLockRegistry gameLocks,
+                       @Value("${tables.flush-interval-ms:500}") long flushIntervalMillis,
+                       @Value("${tables.idle-seconds:600}") long idleSeconds) {
+        this(game -> adoptVersions(game, gameRepository.save(game)), flushIntervalMillis,
+                TimeUnit.SECONDS.toNanos(idleSeconds), System::nanoTime, gameLocks);
+    }
+
+    /**
+     * A write outside of a transaction commits right away and increments the stored versions,
+     * the resident game has to follow them or its next write would be rejected as stale.
+     */
+    private static void adoptVersions(Game resident, Game saved) {
+        if (saved == null || saved == resident) {
+            return;
+        }
+        resident.setVersion(saved.getVersion());
+        for (Player player : resident.getPlayers()) {
+            for (Player savedPlayer : saved.getPlayers()) {
+                if (savedPlayer.getId() != null && savedPlayer.getId().equals(player.getId())) {
+                    player.setVersion(savedPlayer.getVersion());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param flushIntervalMillis interval of the background flusher, 0 to only flush on demand
+     */
+    TableEngine(Consumer<Game> persister, long flushIntervalMillis, long idleNanos, LongSupplier clock) {
+        this(persister, flushIntervalMillis, idleNanos, clock, new GameLockRegistry());
+    }
+
+    TableEngine(Consumer<Game> persister, long flushIntervalMillis, long idleNanos, LongSupplier clock,
+                GameLockRegistry gameLocks) {
+        this.persister = persister;
+        this.gameLocks = gameLocks;
+        this.idleNanos = idleNanos;
+        this.clock = clock;
+        if (flushIntervalMillis > 0) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "table-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.flusher.scheduleWithFixedDelay(this::flushAll, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * A copy of the resident state of a table taken under the table's lock, or null if the table is not
+     * in memory. The resident game itself is only handed to commands, other threads keep changing it.
+     */
+    public Game get(Long gameId) {
+        Table table = gameId != null ? tables.get(gameId) : null;
+        if (table == null) {
+            return null;
+        }
+        synchronized (table) {
+            return table.game.copy();
+        }
+    }
+
+    /**
+     * Runs a command against the resident state of a table, loading the table with the given loader if
+     * it is not in memory yet. Commands of the same table run one after the other and mark the table
+     * dirty. A command that fails may have stopped halfway, the table is then dropped without writing
+     * it and the next command loads the stored state again. The same happens when the transaction the
+     * command ran in rolls back. Call it while holding the game's lock.
+     */
+    public <T> T update(Long gameId, Function<Long, Game> loader, Function<Game, T> command) {
+        while (true) {
+            Table table = tables.get(gameId);
+            if (table == null) {
+                Game game = loader.apply(gameId);
+                table = tables.computeIfAbsent(gameId, id -> new Table(game));
+            }
+            synchronized (table) {
+                if (tables.get(gameId) != table) {
+                    // Released while we were waiting, load it again
+                    continue;
+                }
+                T result;
+                try {
+                    result = command.apply(table.game);
+                } catch (RuntimeException | Error e) {
+                    tables.remove(gameId, table);
+                    throw e;
+                }
+                table.dirty = true;
+                table.lastAccess = clock.getAsLong();
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    Table updated = table;
+                    // Registered before the game's lock is, so it runs before the flusher can get the lock
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (status != STATUS_COMMITTED) {
+                                tables.remove(gameId, updated);
+                            }
+                        }
+                    });
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Writes a table now if it has changes that were not written yet.
+     */
+    public void flush(Long gameId) {
+        Table table = gameId != null ? tables.get(gameId) : null;
+        if (table != null) {
+            write(table);
+        }
+    }
+
+    /**
+     * Writes a table and drops it from memory, after this the database is authoritative again. In a
+     * transaction the write only counts once it commits: if the transaction rolls back, e.g. because the
+     * operation that released the table was rejected, the table is put back with its unwritten changes.
+     * Call it while holding the game's lock.
+     */
+    public void release(Long gameId) {
+        Table table = gameId != null ? tables.get(gameId) : null;
+        if (table != null) {
+            synchronized (table) {
+                boolean dirty = table.dirty;
+                write(table);
+                tables.remove(gameId, table);
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    // Registered before the game's lock is, so nobody loads the table before it is back
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (status != STATUS_COMMITTED) {
+                                synchronized (table) {
+                                    table.dirty |= dirty;
+                                }
+                                tables.putIfAbsent(gameId, table);
+                            }
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops a table from memory without writing it, e.g. because the stored game was changed
+     * by someone else and the resident state is outdated.
+     */
+    public void discard(Long gameId) {
+        if (gameId != null) {
+            tables.remove(gameId);
+        }
+    }
+
+    public boolean isResident(Long gameId) {
+        return gameId != null && tables.containsKey(gameId);
+    }
+
+    /**
+     * Writes every dirty table and drops tables that have been idle for too long. Tables whose game
+     * is locked, by a command or a transaction that has not completed yet, are left for the next tick.
+     */
+    void flushAll() {
+        long now = clock.getAsLong();
+        for (Map.Entry<Long, Table> entry : tables.entrySet()) {
+            ReentrantLock gameLock = gameLocks.lockFor(entry.getKey());
+            if (!gameLock.tryLock()) {
+                continue;
+            }
+            try {
+                flushOne(entry.getKey(), entry.getValue(), now);
+            } finally {
+                gameLock.unlock();
+            }
+        }
+    }
+
+    private void flushOne(Long gameId, Table table, long now) {
+        try {
+            write(table);
+        } catch (RuntimeException e) {
+            if (OptimisticRetry.isConflict(e)) {
+                // The stored game moved on, writing the resident state would never succeed
+                log.warn("Table {} was changed elsewhere, dropping its resident state", gameId);
+                tables.remove(gameId, table);
+            } else {
+                // Stays dirty and is retried on the next tick
+                log.warn("Could not write table {}: {}", gameId, e.getMessage());
+            }
+            return;
+        }
+        synchronized (table) {
+            if (!table.dirty && now - table.lastAccess > idleNanos) {
+                tables.remove(gameId, table);
+            }
+        }
+    }
+
+    private void write(Table table) {
+        synchronized (table) {
+            if (!table.dirty) {
+                return;
+            }
+            persister.accept(table.game);
+            table.dirty = false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flushAll();
+    }
+
+    private final class Table {
+        private final Game game;
+        private boolean dirty;
+        private volatile long lastAccess;
+
+        Table(Game game) {
+            this.game = game;
+            this.lastAccess = clock.getAsLong();
+        }
+    }
+}
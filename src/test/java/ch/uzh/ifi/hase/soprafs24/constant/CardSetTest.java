@@ -0,0 +1,76 @@
+package ch.uzh.ifi.hase.soprafs24.constant;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CardSetTest {
+
+    private static CardSet set(String... cards) {
+        return CardSet.fromShortStrings(Arrays.asList(cards));
+    }
+
+    @Test
+    public void testSetOperations() {
+        CardSet a = set("AS", "KS", "2H");
+        CardSet b = set("KS", "QD");
+
+        assertEquals(set("AS", "KS", "2H", "QD"), a.union(b));
+        assertEquals(set("KS"), a.intersect(b));
+        assertEquals(set("AS", "2H"), a.remove(b));
+        assertTrue(a.containsAny(b));
+        assertFalse(a.containsAny(set("QD")));
+        assertEquals(3, a.size());
+    }
+
+    @Test
+    public void testSingleCards() {
+        Card ace = Card.fromShortString("AS");
+        CardSet set = CardSet.EMPTY.with(ace);
+
+        assertTrue(set.contains(ace));
+        assertFalse(set.without(ace).contains(ace));
+        assertTrue(set.without(ace).isEmpty());
+        assertEquals(CardSet.of(ace), set);
+    }
+
+    @Test
+    public void testComplementIsTheRestOfTheDeck() {
+        CardSet known = set("AS", "KD", "7C");
+
+        CardSet rest = known.complement();
+
+        assertEquals(49, rest.size());
+        assertFalse(rest.containsAny(known));
+        assertEquals(CardSet.FULL_DECK, rest.union(known));
+        assertEquals(52, CardSet.FULL_DECK.size());
+    }
+
+    @Test
+    public void testRankMasks() {
+        CardSet cards = set("AH", "KH", "2H", "AS");
+
+        // Bit per rank ordinal: TWO = bit 0, ACE = bit 12
+        assertEquals((1 << 12) | (1 << 11) | 1, cards.rankMask(Card.Suit.HEARTS));
+        assertEquals(1 << 12, cards.rankMask(Card.Suit.SPADES));
+        assertEquals(0, cards.rankMask(Card.Suit.CLUBS));
+        assertEquals((1 << 12) | (1 << 11) | 1, cards.rankMask());
+    }
+
+    @Test
+    public void testIterationFollowsCodeOrder() {
+        List<Card> cards = set("AS", "2H", "KD").toList();
+
+        assertEquals(Arrays.asList(Card.fromShortString("2H"), Card.fromShortString("KD"), Card.fromShortString("AS")), cards);
+        assertEquals("[2H KD AS]", set("AS", "2H", "KD").toString());
+    }
+
+    @Test
+    public void testInvalidBits() {
+        assertThrows(IllegalArgumentException.class, () -> CardSet.ofBits(1L << 52));
+        assertEquals(set("2H"), CardSet.ofBits(1L));
+    }
+}
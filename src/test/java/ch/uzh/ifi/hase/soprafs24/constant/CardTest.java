@@ -1,22 +1,28 @@
 package ch.uzh.ifi.hase.soprafs24.constant;
 
 import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class CardTest {
 
     @Test
     public void testToShortString() {
-        Card aceOfSpades = new Card(Card.Suit.SPADES, Card.Rank.ACE);
+        Card aceOfSpades = Card.of(Card.Rank.ACE, Card.Suit.SPADES);
         assertEquals("AS", aceOfSpades.toShortString());
         
-        Card tenOfHearts = new Card(Card.Suit.HEARTS, Card.Rank.TEN);
+        Card tenOfHearts = Card.of(Card.Rank.TEN, Card.Suit.HEARTS);
         assertEquals("TH", tenOfHearts.toShortString());
         
-        Card twoOfClubs = new Card(Card.Suit.CLUBS, Card.Rank.TWO);
+        Card twoOfClubs = Card.of(Card.Rank.TWO, Card.Suit.CLUBS);
         assertEquals("2C", twoOfClubs.toShortString());
         
-        Card queenOfDiamonds = new Card(Card.Suit.DIAMONDS, Card.Rank.QUEEN);
+        Card queenOfDiamonds = Card.of(Card.Rank.QUEEN, Card.Suit.DIAMONDS);
         assertEquals("QD", queenOfDiamonds.toShortString());
     }
     
@@ -51,7 +57,7 @@ public class CardTest {
     public void testRoundTripConversion() {
         for (Card.Suit suit : Card.Suit.values()) {
             for (Card.Rank rank : Card.Rank.values()) {
-                Card original = new Card(suit, rank);
+                Card original = Card.of(rank, suit);
                 String shortString = original.toShortString();
                 Card converted = Card.fromShortString(shortString);
                 
@@ -60,4 +66,44 @@ public class CardTest {
             }
         }
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testCardsAreInterned() {
+        Card fromString = Card.fromShortString("QD");
+        Card fromRankAndSuit = Card.of(Card.Rank.QUEEN, Card.Suit.DIAMONDS);
+        Card fromCode = Card.of(fromString.getCode());
+
+        assertSame(fromString, fromRankAndSuit);
+        assertSame(fromString, fromCode);
+        assertEquals(fromString.hashCode(), fromCode.hashCode());
+        assertSame(fromString.toShortString(), Card.fromShortString("QD").toShortString());
+    }
+
+    @Test
+    public void testCodes() {
+        for (int code = 0; code < 52; code++) {
+            assertEquals(code, Card.of(code).getCode());
+        }
+        assertThrows(IllegalArgumentException.class, () -> Card.of(-1));
+        assertThrows(IllegalArgumentException.class, () -> Card.of(52));
+    }
+
+    @Test
+    public void testTenWithTwoDigits() {
+        assertSame(Card.fromShortString("TH"), Card.fromShortString("10H"));
+        assertThrows(IllegalArgumentException.class, () -> Card.fromShortString("1H"));
+        assertThrows(IllegalArgumentException.class, () -> Card.fromShortString("\u4e00S"));
+    }
+
+    @Test
+    public void testSerializationKeepsTheInstance() throws Exception {
+        Card card = Card.fromShortString("7C");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(card);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertSame(card, in.readObject());
+        }
+    }
+}
@@ -2,7 +2,10 @@ package ch.uzh.ifi.hase.soprafs24.constant;
 
 import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class DeckTest {
@@ -87,9 +90,85 @@ public class DeckTest {
         Deck deck = new Deck();
         int initialCount = deck.remainingCards();
         
-        Card newCard = new Card(Card.Suit.HEARTS, Card.Rank.ACE);
+        Card newCard = Card.of(Card.Rank.ACE, Card.Suit.HEARTS);
         deck.addCard(newCard);
         
         assertEquals(initialCount + 1, deck.remainingCards());
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testCreateDeckExcluding() {
+        Set<Card> known = new HashSet<>(Arrays.asList(Card.fromShortString("AS"), Card.fromShortString("KD")));
+
+        List<Card> deck = Deck.createDeckExcluding(known);
+
+        assertEquals(50, deck.size());
+        assertFalse(deck.contains(Card.fromShortString("AS")));
+        assertFalse(deck.contains(Card.fromShortString("KD")));
+    }
+
+    @Test
+    public void testDrawFollowsTheRemainingView() {
+        Deck deck = Deck.fromStringList(Arrays.asList("AS", "KD", "7C"));
+        List<Card> remaining = deck.remaining();
+
+        assertEquals(Card.fromShortString("AS"), remaining.get(0));
+        assertSame(Card.fromShortString("AS"), deck.drawCard());
+
+        // The view is backed by the deck
+        assertEquals(2, remaining.size());
+        assertEquals(Card.fromShortString("KD"), remaining.get(0));
+        assertThrows(UnsupportedOperationException.class, () -> remaining.add(Card.fromShortString("2H")));
+    }
+
+    @Test
+    public void testDrawAllCards() {
+        Deck deck = new Deck();
+        deck.shuffle();
+        Set<Card> drawn = new HashSet<>();
+        while (!deck.isEmpty()) {
+            drawn.add(deck.drawCard());
+        }
+
+        assertEquals(52, drawn.size());
+        assertThrows(IllegalStateException.class, deck::drawCard);
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        Deck deck = new Deck();
+        deck.drawCard();
+        Deck copy = deck.copy();
+
+        copy.drawCard();
+        copy.addCard(Card.fromShortString("2H"));
+
+        assertEquals(51, deck.remainingCards());
+        assertEquals(51, copy.remainingCards());
+        assertEquals(deck.getCards().get(1), copy.getCards().get(0));
+    }
+
+    @Test
+    public void testAddCardAtIndex() {
+        Deck deck = Deck.fromStringList(Arrays.asList("AS", "KD"));
+        deck.drawCard();
+
+        deck.addCard(0, Card.fromShortString("2H"));
+
+        assertEquals(Arrays.asList("2H", "KD"), deck.toStringList());
+    }
+
+    @Test
+    public void testCodesRoundTrip() {
+        Deck deck = new Deck();
+        deck.shuffle();
+        deck.drawCard();
+
+        byte[] codes = deck.toCodes();
+        Deck restored = Deck.fromCodes(codes);
+
+        assertEquals(51, codes.length);
+        assertEquals(deck.toStringList(), restored.toStringList());
+        assertThrows(IllegalArgumentException.class, () -> Deck.fromCodes(new byte[] {52}));
+    }
+}
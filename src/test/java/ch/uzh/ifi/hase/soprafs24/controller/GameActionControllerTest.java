@@ -5,6 +5,8 @@ import ch.uzh.ifi.hase.soprafs24.constant.PlayerAction;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.Player;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.helpers.OddsResult;
+import ch.uzh.ifi.hase.soprafs24.repository.GameHeader;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.PlayerActionPostDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.PokerAdviceResponseDTO;
 import ch.uzh.ifi.hase.soprafs24.service.GameService;
@@ -59,13 +61,15 @@ public class GameActionControllerTest {
 
         given(userService.getUserByToken("valid-token")).willReturn(user);
         given(gameService.getGameById(eq(1L), any())).willReturn(game);
-        given(gameService.calculateWinProbability(eq(1L), eq(1L))).willReturn(0.75);
+        given(gameService.estimateWinProbability(eq(1L), eq(1L))).willReturn(new OddsResult(0.75, 0.01, 3000));
 
         // when/then
         mockMvc.perform(MockMvcRequestBuilders.get("/games/1/probability")
                 .header("Authorization", "Bearer valid-token"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.probability").value(0.75));
+                .andExpect(jsonPath("$.probability").value(0.75))
+                .andExpect(jsonPath("$.errorBound").value(0.01))
+                .andExpect(jsonPath("$.iterations").value(3000));
     }
 
     @Test
@@ -126,16 +130,14 @@ public class GameActionControllerTest {
         user.setId(1L);
         user.setToken("valid-token");
 
-        Game game = new Game();
-        game.setId(1L);
-        game.setCreatorId(1L); // User is the creator of the game
+        GameHeader header = new GameHeader(1L, 1L, true, GameStatus.READY); // User is the creator of the game
 
         Game updatedGame = new Game();
         updatedGame.setId(1L);
         updatedGame.setGameStatus(GameStatus.PREFLOP);
 
         given(userService.getUserByToken("valid-token")).willReturn(user);
-        given(gameService.getGameById(eq(1L), any())).willReturn(game);
+        given(gameService.getGameHeader(eq(1L), any())).willReturn(header);
         given(gameService.startBettingRound(eq(1L))).willReturn(updatedGame);
 
         // when/then
@@ -153,12 +155,10 @@ public class GameActionControllerTest {
         user.setId(1L);
         user.setToken("valid-token");
 
-        Game game = new Game();
-        game.setId(1L);
-        game.setCreatorId(2L); // Different user is the creator
+        GameHeader header = new GameHeader(1L, 2L, true, GameStatus.READY); // Different user is the creator
 
         given(userService.getUserByToken("valid-token")).willReturn(user);
-        given(gameService.getGameById(eq(1L), any())).willReturn(game);
+        given(gameService.getGameHeader(eq(1L), any())).willReturn(header);
 
         // when/then
         mockMvc.perform(MockMvcRequestBuilders.post("/games/1/start-betting")
@@ -375,7 +375,7 @@ public class GameActionControllerTest {
 
         given(userService.getUserByToken("valid-token")).willReturn(user);
         given(gameService.getGameById(eq(1L), any())).willReturn(game);
-        given(gameService.calculateWinProbability(eq(1L), eq(1L))).willReturn(0.33); // 1/3 chance with 3 players
+        given(gameService.estimateWinProbability(eq(1L), eq(1L))).willReturn(new OddsResult(0.33, 0.01, 8000)); // 1/3 chance with 3 players
 
         // when/then
         mockMvc.perform(MockMvcRequestBuilders.get("/games/1/probability")
@@ -472,7 +472,7 @@ public class GameActionControllerTest {
                 .andExpect(status().isUnauthorized());
 
         verify(userService).getUserByToken("invalid-token-value");
-        verify(gameService, never()).getGameById(anyLong(), anyString()); // Should not proceed to get game
+        verify(gameService, never()).getGameHeader(anyLong(), anyString()); // Should not proceed to get game
         verify(gameService, never()).startBettingRound(anyLong()); // Should not start betting round
     }
 
@@ -484,8 +484,8 @@ public class GameActionControllerTest {
         user.setToken("valid-token");
 
         given(userService.getUserByToken("valid-token")).willReturn(user);
-        // gameService.getGameById will return null
-        given(gameService.getGameById(eq(1L), eq("valid-token"))).willReturn(null);
+        // gameService.getGameHeader will return null
+        given(gameService.getGameHeader(eq(1L), eq("valid-token"))).willReturn(null);
 
         // when/then
         mockMvc.perform(MockMvcRequestBuilders.post("/games/1/start-betting")
@@ -493,7 +493,7 @@ public class GameActionControllerTest {
                 .andExpect(status().isNotFound());
 
         verify(userService).getUserByToken("valid-token");
-        verify(gameService).getGameById(eq(1L), eq("valid-token"));
+        verify(gameService).getGameHeader(eq(1L), eq("valid-token"));
         verify(gameService, never()).startBettingRound(anyLong()); // Should not start betting round
     }
 
@@ -630,7 +630,7 @@ public class GameActionControllerTest {
 
         verify(userService).getUserByToken("valid-token");
         verify(gameService).getGameById(eq(1L), eq("valid-token"));
-        verify(gameService, never()).calculateWinProbability(anyLong(), anyLong());
+        verify(gameService, never()).estimateWinProbability(anyLong(), anyLong());
     }
 
     // Helper method to convert objects to JSON string
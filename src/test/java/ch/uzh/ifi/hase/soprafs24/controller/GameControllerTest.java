@@ -12,6 +12,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import static org.mockito.BDDMockito.given;
 import org.springframework.http.HttpStatus;
@@ -19,6 +20,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,6 +31,7 @@ import static org.mockito.Mockito.doAnswer;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
 
 import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
 import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
@@ -35,6 +39,8 @@ import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
 import ch.uzh.ifi.hase.soprafs24.entity.Player;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GameCreationPostDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyGameDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyPageDTO;
 import ch.uzh.ifi.hase.soprafs24.service.GameService;
 import ch.uzh.ifi.hase.soprafs24.service.UserFriendsService;
 import ch.uzh.ifi.hase.soprafs24.service.UserService;
@@ -212,6 +218,72 @@ public class GameControllerTest {
     }
 
 
+    @Test
+    public void quickSeatTest() throws Exception {
+        Game game = new Game();
+        game.setId(3L);
+        game.setIsPublic(true);
+        game.setSmallBlind(5);
+        game.setBigBlind(10);
+        game.setStatus(GameStatus.READY);
+        game.setCreatorId(1L);
+        given(gameService.quickSeat("valid-token", null, 10)).willReturn(game);
+
+        MockHttpServletRequestBuilder postRequest = post("/games/quick-seat?bigBlind=10")
+                .header("Authorization", "Bearer valid-token");
+
+        mockMvc.perform(postRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(3))
+                .andExpect(jsonPath("$.bigBlind").value(10));
+    }
+
+    @Test
+    public void streamGameStateTest() throws Exception {
+        given(gameService.subscribeToGame(3L, "valid-token")).willReturn(new SseEmitter());
+
+        MockHttpServletRequestBuilder getRequest = get("/games/3/events")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Authorization", "Bearer valid-token");
+
+        // The stream stays open, the request is handed over to the emitter
+        mockMvc.perform(getRequest)
+                .andExpect(request().asyncStarted());
+        verify(gameService, times(1)).subscribeToGame(3L, "valid-token");
+    }
+
+    @Test
+    public void streamGameStateNotFoundTest() throws Exception {
+        given(gameService.subscribeToGame(99L, "valid-token"))
+                .willThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+
+        MockHttpServletRequestBuilder getRequest = get("/games/99/events")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Authorization", "Bearer valid-token");
+
+        mockMvc.perform(getRequest)
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getLobbyPageTest() throws Exception {
+        LobbyGameDTO lobbyGame = new LobbyGameDTO(5L, 1L, 5, 10, 1000L, 6, 2, GameStatus.WAITING);
+        given(gameService.getLobbyPage("valid-token", 4L, 10, null, 5, 10, null, 1, GameStatus.WAITING))
+                .willReturn(new LobbyPageDTO(Collections.singletonList(lobbyGame), 5L));
+
+        MockHttpServletRequestBuilder getRequest = get("/games/lobby?after=4&size=10&maxSmallBlind=5&minBigBlind=10&openSeats=1&status=WAITING")
+                .header("Authorization", "Bearer valid-token");
+
+        mockMvc.perform(getRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.games[0].id").value(5))
+                .andExpect(jsonPath("$.games[0].bigBlind").value(10))
+                .andExpect(jsonPath("$.games[0].numberOfPlayers").value(2))
+                .andExpect(jsonPath("$.games[0].openSeats").value(4))
+                .andExpect(jsonPath("$.games[0].gameStatus").value("WAITING"))
+                .andExpect(jsonPath("$.nextAfter").value(5));
+    }
+
     @Test
     public void getAllPublicGamesValidTokenTest() throws Exception {
         // given user
@@ -323,6 +395,43 @@ public class GameControllerTest {
 
     }
         
+    @Test
+    public void getGameByIdSendsETagTest() throws Exception {
+        Game game = new Game();
+        game.setId(1L);
+        game.setIsPublic(true);
+        game.setStatus(GameStatus.WAITING);
+        game.setCreatorId(1L);
+        given(gameService.getGameStateTag(1L)).willReturn("\"abc-3\"");
+        given(gameService.getGameById(1L, "valid-token")).willReturn(game);
+
+        MockHttpServletRequestBuilder getRequest = get("/games/1")
+                .header("Authorization", "Bearer valid-token")
+                .header("If-None-Match", "\"abc-2\"");
+
+        mockMvc.perform(getRequest)
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc-3\""))
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    public void getGameByIdNotModifiedTest() throws Exception {
+        given(gameService.getGameStateTag(1L)).willReturn("\"abc-3\"");
+        given(gameService.isGameStateCurrent(1L, "valid-token", "\"abc-3\"", "\"abc-3\"")).willReturn(true);
+
+        MockHttpServletRequestBuilder getRequest = get("/games/1")
+                .header("Authorization", "Bearer valid-token")
+                .header("If-None-Match", "\"abc-3\"");
+
+        // Answered without loading the game
+        mockMvc.perform(getRequest)
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc-3\""))
+                .andExpect(content().string(""));
+        verify(gameService, never()).getGameById(any(), anyString());
+    }
+
     @Test
     public void testJoinGameTwiceNoDuplicatePlayers() throws Exception {
         // given user
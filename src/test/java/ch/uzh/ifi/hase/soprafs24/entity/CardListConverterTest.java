@@ -0,0 +1,47 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CardListConverterTest {
+
+    private final CardListConverter converter = new CardListConverter();
+
+    @Test
+    public void testRoundTrip() {
+        List<String> cards = Arrays.asList("AS", "KD", "7C", "TH", "2S");
+
+        String column = converter.convertToDatabaseColumn(cards);
+
+        assertEquals("ASKD7CTH2S", column);
+        assertEquals(cards, converter.convertToEntityAttribute(column));
+    }
+
+    @Test
+    public void testTenIsStoredAsOneCharacter() {
+        assertEquals("THAS", converter.convertToDatabaseColumn(Arrays.asList("10H", "AS")));
+    }
+
+    @Test
+    public void testEmptyAndNull() {
+        assertEquals("", converter.convertToDatabaseColumn(new ArrayList<>()));
+        assertNull(converter.convertToDatabaseColumn(null));
+
+        // Loaded lists are never null and can be dealt into
+        List<String> cards = converter.convertToEntityAttribute(null);
+        assertTrue(cards.isEmpty());
+        cards.add("AS");
+        assertEquals(Arrays.asList("AS"), cards);
+    }
+
+    @Test
+    public void testInvalidCards() {
+        assertThrows(IllegalArgumentException.class, () -> converter.convertToDatabaseColumn(Arrays.asList("XX")));
+        assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute("ASK"));
+    }
+}
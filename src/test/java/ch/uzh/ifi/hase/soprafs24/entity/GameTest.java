@@ -7,6 +7,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -67,7 +68,7 @@ public class GameTest {
         game.setCommunityCards(new ArrayList<>());
         
         // Create a card and add it
-        Card card = new Card(Card.Suit.HEARTS, Card.Rank.ACE);
+        Card card = Card.of(Card.Rank.ACE, Card.Suit.HEARTS);
         game.addCommunityCard(card);
         
         // Verify it was added
@@ -189,4 +190,30 @@ public class GameTest {
             cardStrings.add(cardString);
         }
     }
+
+    @Test
+    void testDrawKeepsCardDeckInSync() {
+        game.setCardDeck(new ArrayList<>(Arrays.asList("AS", "KD", "7C")));
+
+        assertEquals("AS", game.getRandomCard());
+        assertEquals(Arrays.asList("KD", "7C"), game.getCardDeck());
+
+        // Drawing from the returned copy does not touch the game's deck
+        game.getDeck().drawCard();
+        assertEquals("KD", game.getRandomCard());
+        assertEquals(Arrays.asList("7C"), game.getCardDeck());
+    }
+
+    @Test
+    void testDrawnCardsAreNotDealtAgain() {
+        game.initializeShuffledDeck();
+        List<String> order = game.getCardDeck();
+
+        for (int i = 0; i < 52; i++) {
+            assertEquals(order.get(i), game.getRandomCard());
+        }
+
+        assertTrue(game.getCardDeck().isEmpty());
+        assertThrows(IllegalStateException.class, () -> game.drawRandomCard());
+    }
 }
@@ -0,0 +1,132 @@
+package ch.uzh.ifi.hase.soprafs24.helpers;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Card;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+public class FlopEquityTableTest {
+
+    private static long mask(String... cards) {
+        return OddsCalculator.toMask(cards);
+    }
+
+    @Test
+    public void testIsomorphicSpotsShareAKey() {
+        int hearts = FlopEquityTable.canonicalKey(mask("AH", "KH"), mask("QH", "7D", "2C"));
+        int spades = FlopEquityTable.canonicalKey(mask("KS", "AS"), mask("2H", "QS", "7C"));
+        int offsuit = FlopEquityTable.canonicalKey(mask("AH", "KD"), mask("QH", "7D", "2C"));
+
+        assertEquals(hearts, spades);
+        assertNotEquals(hearts, offsuit);
+    }
+
+    @Test
+    public void testSampledKeysAreCanonical() {
+        Random random = new Random(11L);
+        for (int sample = 0; sample < 2000; sample++) {
+            List<Integer> deck = new ArrayList<>();
+            for (int code = 0; code < 52; code++) {
+                deck.add(code);
+            }
+            Collections.shuffle(deck, random);
+            long hand = 1L << deck.get(0) | 1L << deck.get(1);
+            long flop = 1L << deck.get(2) | 1L << deck.get(3) | 1L << deck.get(4);
+            int key = FlopEquityTable.canonicalKey(hand, flop);
+
+            // Renaming the suits keeps the key, and the key's own spot is canonical
+            int[] permutation = FlopEquityTable.SUIT_PERMUTATIONS[random.nextInt(24)];
+            assertEquals(key, FlopEquityTable.canonicalKey(permute(hand, permutation), permute(flop, permutation)));
+            long keyHand = 1L << (key >>> 24 & 0x3F) | 1L << (key >>> 18 & 0x3F);
+            long keyFlop = 1L << (key >>> 12 & 0x3F) | 1L << (key >>> 6 & 0x3F) | 1L << (key & 0x3F);
+            assertEquals(key, FlopEquityTable.canonicalKey(keyHand, keyFlop));
+        }
+    }
+
+    private static long permute(long mask, int[] permutation) {
+        long permuted = 0L;
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            int code = Long.numberOfTrailingZeros(rest);
+            permuted |= 1L << (permutation[code / 13] * 13 + code % 13);
+        }
+        return permuted;
+    }
+
+    // Enumerates all ~29M hand / flop pairs, run with ./gradlew slowTest
+    @Tag("slow")
+    @Test
+    public void testCanonicalKeyCount() {
+        int[] keys = FlopEquityTable.canonicalKeys();
+
+        assertEquals(1286792, keys.length);
+        for (int i = 1; i < keys.length; i++) {
+            assertTrue(keys[i - 1] < keys[i], "Keys should be sorted");
+        }
+    }
+
+    @Test
+    public void testMappedTableAnswersFlopSpots() throws IOException {
+        long hand = mask("9H", "9D");
+        long flop = mask("9C", "AH", "2S");
+        int[] keys = {FlopEquityTable.canonicalKey(mask("AS", "AC"), mask("KD", "QC", "2H")),
+                FlopEquityTable.canonicalKey(hand, flop)};
+        Arrays.sort(keys);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        double[] equities;
+        try {
+            equities = FlopEquityTable.compute(keys, 1, 5000, 3L, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        Path file = Files.createTempFile("flop-equity", ".bin");
+        try {
+            FlopEquityTable.write(file, 1, 5000, keys, equities);
+            FlopEquityTable table = FlopEquityTable.open(file);
+
+            assertEquals(2, table.getEntries());
+            // Same spot with the suits renamed
+            OddsResult result = table.lookup(mask("9S", "9C"), mask("9D", "AS", "2H"), 1);
+            assertNotNull(result);
+            assertTrue(result.getProbability() > 0.95 && result.getProbability() < 0.99,
+                    "Set vs random hands on flop should win approximately 97% of the time. Got: " + result.getProbability());
+            assertEquals(5000, result.getIterations());
+
+            assertNull(table.lookup(hand, flop, 2), "Other opponent counts are not in the table");
+            assertNull(table.lookup(mask("7S", "7C"), flop, 1), "Missing spots are not in the table");
+            assertNull(table.lookup(hand, mask("9C", "AH", "2S", "3D"), 1), "Only the flop is in the table");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testCalculatorUsesInstalledTable() throws IOException {
+        long hand = mask("AH", "KH");
+        long flop = mask("QH", "JH", "2C");
+        int[] keys = {FlopEquityTable.canonicalKey(hand, flop)};
+
+        Path file = Files.createTempFile("flop-equity", ".bin");
+        try {
+            // A deliberately wrong equity shows that the value comes from the table
+            FlopEquityTable.write(file, 2, 1000, keys, new double[]{0.25});
+            FlopEquityTable.install(FlopEquityTable.open(file));
+
+            List<Card> playerHand = Arrays.asList(Card.fromShortString("AS"), Card.fromShortString("KS"));
+            List<Card> board = Arrays.asList(Card.fromShortString("QS"), Card.fromShortString("JS"), Card.fromShortString("2D"));
+            OddsResult result = OddsCalculator.estimateWinProbability(playerHand, board, 2, 0.01, 10000, false);
+
+            assertEquals(0.25, result.getProbability(), 1e-4);
+            assertEquals(1000, result.getIterations());
+        } finally {
+            FlopEquityTable.install(null);
+            Files.deleteIfExists(file);
+        }
+    }
+}
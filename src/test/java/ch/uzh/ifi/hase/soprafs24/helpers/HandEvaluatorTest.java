@@ -480,4 +480,78 @@ public class HandEvaluatorTest {
         assertTrue(value1.compareTo(value2) > 0, 
                 "Ace-high should be higher than King-high");
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testPackedCodesMatchCardList() {
+        List<Card> hand = Arrays.asList(
+            Card.fromShortString("AH"),
+            Card.fromShortString("AS"),
+            Card.fromShortString("KD"),
+            Card.fromShortString("KH"),
+            Card.fromShortString("QD"),
+            Card.fromShortString("2C"),
+            Card.fromShortString("3S")
+        );
+
+        int[] codes = new int[hand.size()];
+        for (int i = 0; i < hand.size(); i++) {
+            codes[i] = hand.get(i).getCode();
+        }
+
+        int strength = HandEvaluator.evaluate(codes, codes.length);
+        assertEquals(HandEvaluator.evaluate(hand), strength);
+        assertEquals(HandEvaluator.TWO_PAIR, HandEvaluator.category(strength));
+    }
+
+    @Test
+    public void testKickerDecidesOnePair() {
+        // Same pair of aces, the third kicker differs (9 vs 8)
+        List<Card> pairNineKicker = Arrays.asList(
+            Card.fromShortString("AH"),
+            Card.fromShortString("AS"),
+            Card.fromShortString("KD"),
+            Card.fromShortString("QH"),
+            Card.fromShortString("9D"),
+            Card.fromShortString("2C"),
+            Card.fromShortString("3S")
+        );
+
+        List<Card> pairEightKicker = Arrays.asList(
+            Card.fromShortString("AD"),
+            Card.fromShortString("AC"),
+            Card.fromShortString("KS"),
+            Card.fromShortString("QC"),
+            Card.fromShortString("8D"),
+            Card.fromShortString("2H"),
+            Card.fromShortString("3C")
+        );
+
+        OddsCalculator.HandValue value1 = OddsCalculator.evaluateHand(pairNineKicker);
+        OddsCalculator.HandValue value2 = OddsCalculator.evaluateHand(pairEightKicker);
+
+        assertEquals(Arrays.asList(14, 13, 12, 9), value1.kickers);
+        assertTrue(HandEvaluator.evaluate(pairNineKicker) > HandEvaluator.evaluate(pairEightKicker),
+                "Higher third kicker should win");
+        assertEquals("Pair of Aces", value1.toString());
+        assertEquals("Pair of Aces", value2.toString());
+    }
+
+    @Test
+    public void testFullHouseFromTwoTrips() {
+        // Two sets on board: the higher one is used as trips, the lower one as the pair
+        List<Card> hand = Arrays.asList(
+            Card.fromShortString("KH"),
+            Card.fromShortString("KS"),
+            Card.fromShortString("KD"),
+            Card.fromShortString("7H"),
+            Card.fromShortString("7D"),
+            Card.fromShortString("7C"),
+            Card.fromShortString("2S")
+        );
+
+        OddsCalculator.HandValue value = OddsCalculator.evaluateHand(hand);
+
+        assertEquals(6, value.category, "Two trips should make a full house (category 6)");
+        assertEquals("Full House, Kings full of 7s", value.toString());
+    }
+}
@@ -0,0 +1,192 @@
+package ch.uzh.ifi.hase.soprafs24.helpers;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Card;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class OddsCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger computations = new AtomicInteger();
+
+    private static List<Card> cards(String... cards) {
+        List<Card> result = new ArrayList<>();
+        for (String s : cards) {
+            result.add(Card.fromShortString(s));
+        }
+        return result;
+    }
+
+    private OddsResult compute() {
+        computations.incrementAndGet();
+        return new OddsResult(0.5, 0.01, 1000);
+    }
+
+    private OddsCache cache(int maxSize) {
+        return new OddsCache(maxSize, TimeUnit.SECONDS.toNanos(60), now::get);
+    }
+
+    @Test
+    public void testRepeatedSpotIsAHit() {
+        OddsCache cache = cache(10);
+
+        OddsResult first = cache.get(1L, cards("AS", "KS"), cards("QS", "7D", "2C"), 2, this::compute);
+        OddsResult second = cache.get(1L, cards("AS", "KS"), cards("QS", "7D", "2C"), 2, this::compute);
+
+        assertSame(first, second);
+        assertEquals(1, computations.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testImpreciseOrInterruptedResultsAreNotStored() {
+        OddsCache cache = cache(10);
+
+        // The error bound of 0.01 misses the target
+        cache.get(1L, cards("AS", "KS"), cards("QS", "7D", "2C"), 2, 0.005, this::compute);
+        assertEquals(0, cache.size());
+
+        Thread.currentThread().interrupt();
+        try {
+            cache.get(1L, cards("AS", "KS"), cards("QS", "7D", "2C"), 2, 0.01, this::compute);
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(0, cache.size());
+
+        cache.get(1L, cards("AS", "KS"), cards("QS", "7D", "2C"), 2, 0.01, this::compute);
+        assertEquals(1, cache.size());
+        assertEquals(3, computations.get());
+    }
+
+    @Test
+    public void testPeekOnlyReads() {
+        OddsCache cache = cache(10);
+
+        assertNull(cache.peek(cards("AS", "KS"), cards("QS", "7D", "2C"), 2));
+        OddsResult stored = cache.get(1L, cards("AS", "KS"), cards("QS", "7D", "2C"), 2, this::compute);
+
+        assertSame(stored, cache.peek(cards("AH", "KH"), cards("QH", "7D", "2C"), 2));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testIsomorphicSpotsShareAnEntry() {
+        OddsCache cache = cache(10);
+
+        cache.get(1L, cards("AS", "KS"), cards("QS", "7D", "2C"), 2, this::compute);
+        cache.get(2L, cards("AH", "KH"), cards("QH", "7C", "2D"), 2, this::compute);
+        cache.get(3L, cards("AH", "KH"), cards("QH", "7C", "2D"), 3, this::compute);
+
+        assertEquals(2, computations.get(), "Only the opponent count should make a difference");
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        OddsCache cache = cache(2);
+
+        cache.get(null, cards("AS", "AC"), cards(), 1, this::compute);
+        cache.get(null, cards("KS", "KC"), cards(), 1, this::compute);
+        cache.get(null, cards("AS", "AC"), cards(), 1, this::compute);
+        cache.get(null, cards("QS", "QC"), cards(), 1, this::compute);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        cache.get(null, cards("AS", "AC"), cards(), 1, this::compute);
+        assertEquals(2, cache.getHits(), "Aces were used recently and should still be cached");
+    }
+
+    @Test
+    public void testExpiredEntryIsRecomputed() {
+        OddsCache cache = cache(10);
+
+        cache.get(1L, cards("AS", "AC"), cards(), 1, this::compute);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        cache.get(1L, cards("AS", "AC"), cards(), 1, this::compute);
+
+        assertEquals(2, computations.get());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void testNewCommunityCardsInvalidateTheGamesEntries() {
+        OddsCache cache = cache(10);
+
+        cache.get(1L, cards("AS", "AC"), cards("KD", "QC", "2H"), 1, this::compute);
+        cache.get(1L, cards("7S", "7C"), cards("KD", "QC", "2H"), 1, this::compute);
+        assertEquals(2, cache.size());
+
+        // The turn is dealt
+        cache.get(1L, cards("AS", "AC"), cards("KD", "QC", "2H", "5S"), 1, this::compute);
+
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    @Test
+    public void testInvalidateGame() {
+        OddsCache cache = cache(10);
+
+        cache.get(1L, cards("AS", "AC"), cards(), 1, this::compute);
+        cache.get(2L, cards("KS", "KC"), cards(), 1, this::compute);
+        cache.invalidateGame(1L);
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getInvalidations());
+    }
+
+    @Test
+    public void testEvictedEntriesLeaveTheirGame() {
+        OddsCache cache = cache(2);
+
+        cache.get(1L, cards("AS", "AC"), cards(), 1, this::compute);
+        cache.get(2L, cards("KS", "KC"), cards(), 1, this::compute);
+        assertEquals(2, cache.gameCount());
+
+        // Game 1's only entry is evicted, the game is forgotten with it
+        cache.get(3L, cards("QS", "QC"), cards(), 1, this::compute);
+        assertEquals(2, cache.gameCount());
+        cache.invalidateGame(1L);
+        assertEquals(0, cache.getInvalidations());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testGamesWithoutEntriesAreNotKept() {
+        OddsCache cache = cache(10);
+
+        cache.get(1L, cards("AS", "AC"), cards("KD", "QC", "2H"), 1, this::compute);
+        // Only hits, game 2 stores nothing
+        cache.get(2L, cards("AH", "AD"), cards("KC", "QD", "2S"), 1, this::compute);
+        assertEquals(1, cache.gameCount());
+
+        // The turn drops game 1's entries, only the new one keeps it
+        cache.get(1L, cards("AS", "AC"), cards("KD", "QC", "2H", "5S"), 1, this::compute);
+        assertEquals(1, cache.gameCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testSegmentedCacheKeepsItsSize() {
+        OddsCache cache = new OddsCache(8, TimeUnit.SECONDS.toNanos(60), now::get, 4);
+        String[] ranks = {"2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K", "A"};
+
+        for (String rank : ranks) {
+            cache.get(1L, cards(rank + "S", rank + "C"), cards(), 1, this::compute);
+        }
+
+        assertEquals(ranks.length, computations.get());
+        assertTrue(cache.size() <= 8);
+        assertEquals(ranks.length - cache.size(), cache.getEvictions());
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class OddsCalculatorTest {
 
@@ -34,9 +35,9 @@ public class OddsCalculatorTest {
 
         double winProbability = OddsCalculator.calculateOddsRaw(playerHand, board, opponents, iterations);
         
-        // Debug shows win rate around 84%
-        assertTrue(winProbability > 0.80 && winProbability < 0.88,
-                "Overpair vs random hands on flop should win approximately 84% of the time. Got: " + winProbability);
+        // Exact equity is about 88%
+        assertTrue(winProbability > 0.84 && winProbability < 0.92,
+                "Overpair vs random hands on flop should win approximately 88% of the time. Got: " + winProbability);
     }
 
     @Test
@@ -98,9 +99,9 @@ public class OddsCalculatorTest {
 
         double winProbability = OddsCalculator.calculateOddsRaw(playerHand, board, opponents, iterations);
         
-        // Top pair against multiple opponents has more variance
-        assertTrue(winProbability > 0.40 && winProbability < 0.60,
-                "Top pair against 4 opponents should win approximately 50% of the time. Got: " + winProbability);
+        // Top pair top kicker against multiple opponents has more variance (exact equity is about 64%)
+        assertTrue(winProbability > 0.58 && winProbability < 0.70,
+                "Top pair against 4 opponents should win approximately 64% of the time. Got: " + winProbability);
     }
 
     @Test
@@ -114,9 +115,9 @@ public class OddsCalculatorTest {
 
         double winProbability = OddsCalculator.calculateOddsRaw(playerHand, board, opponents, iterations);
         
-        // Debug shows win rate around 87%
-        assertTrue(winProbability > 0.85 && winProbability < 0.90,
-                "Top pair vs random hands on turn should win approximately 87% of the time. Got: " + winProbability);
+        // Exact equity is about 89%
+        assertTrue(winProbability > 0.86 && winProbability < 0.92,
+                "Top pair vs random hands on turn should win approximately 89% of the time. Got: " + winProbability);
     }
 
     @Test
@@ -145,9 +146,9 @@ public class OddsCalculatorTest {
 
         double winProbability = OddsCalculator.calculateOddsRaw(playerHand, board, opponents, iterations);
         
-        // Pocket queens against 3 random hands preflop should win about 60% of the time
-        assertTrue(winProbability > 0.55 && winProbability < 0.70,
-                "Pocket queens against 3 opponents preflop should win approximately 60% of the time. Got: " + winProbability);
+        // Pocket queens against 3 random hands preflop should win about 54% of the time
+        assertTrue(winProbability > 0.50 && winProbability < 0.60,
+                "Pocket queens against 3 opponents preflop should win approximately 54% of the time. Got: " + winProbability);
     }
 
     @Test
@@ -182,6 +183,119 @@ public class OddsCalculatorTest {
                 "Player with strong hand should win a high percentage of the time. Got: " + winProbability);
     }
 
+    @Test
+    public void testNoOpponentsAlwaysWins() {
+        String[] playerHand = {"7H", "2D"};
+        String[] board = {"KS", "QC"};
+
+        double winProbability = OddsCalculator.calculateOddsRaw(playerHand, board, 0, 1000);
+
+        assertEquals(1.0, winProbability, 1e-9);
+    }
+
+    @Test
+    public void testTooManyOpponentsIsRejected() {
+        String[] playerHand = {"AH", "KD"};
+        String[] board = {};
+
+        // 24 opponent hands plus the board need 53 cards, only 50 are left
+        assertThrows(IllegalArgumentException.class,
+                () -> OddsCalculator.calculateOddsRaw(playerHand, board, 24, 100));
+    }
+
+    @Test
+    public void testParallelMatchesExpectedOdds() {
+        String[] playerHand = {"AS", "AC"};
+        String[] board = {};
+
+        double winProbability = OddsCalculator.calculateOddsParallel(playerHand, board, 1, 20000, 42L);
+
+        assertTrue(winProbability > 0.82 && winProbability < 0.89,
+                "AA vs random hand should win approximately 85% of the time. Got: " + winProbability);
+    }
+
+    @Test
+    public void testParallelIsReproducibleAcrossPoolSizes() {
+        long hand = OddsCalculator.toMask(new String[]{"JH", "TD"});
+        long board = OddsCalculator.toMask(new String[]{"9C", "8S", "2D"});
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool quad = new ForkJoinPool(4);
+        try {
+            double first = OddsCalculator.calculateOddsParallel(hand, board, 3, 15000, new SplittableRandom(7L), single);
+            double second = OddsCalculator.calculateOddsParallel(hand, board, 3, 15000, new SplittableRandom(7L), quad);
+            assertEquals(Double.doubleToLongBits(first), Double.doubleToLongBits(second),
+                    "Same seed must give the same result regardless of parallelism");
+        } finally {
+            single.shutdown();
+            quad.shutdown();
+        }
+    }
+
+    @Test
+    public void testRiverIsEnumeratedExactly() {
+        // Broadway is the nuts; the opponent only ties when holding one of the 3 remaining aces
+        String[] playerHand = {"AH", "3H"};
+        String[] board = {"KH", "QH", "JD", "TC", "9S"};
+
+        double winProbability = OddsCalculator.calculateOddsRaw(playerHand, board, 1, 100);
+
+        // 861 of 990 opponent hands lose, 129 contain an ace and split the pot
+        assertEquals((861 + 129 * 0.5) / 990, winProbability, 1e-12);
+    }
+
+    @Test
+    public void testTurnEquityHasNoVariance() {
+        String[] playerHand = {"AH", "KD"};
+        String[] board = {"KS", "7C", "2H", "5D"};
+
+        double first = OddsCalculator.calculateOddsRaw(playerHand, board, 1, 1000);
+        double second = OddsCalculator.calculateOddsRaw(playerHand, board, 1, 1000);
+
+        assertEquals(first, second, 0.0);
+        assertTrue(OddsCalculator.dealCount(46, 1, 1) <= OddsCalculator.ENUMERATION_THRESHOLD);
+    }
+
+    @Test
+    public void testAdaptiveStopsEarlyForClearFavourite() {
+        // A set on the flop against one opponent is a ~97% favourite
+        List<Card> playerHand = Arrays.asList(Card.fromShortString("9H"), Card.fromShortString("9D"));
+        List<Card> board = Arrays.asList(Card.fromShortString("9C"), Card.fromShortString("AH"), Card.fromShortString("2S"));
+
+        OddsResult result = OddsCalculator.estimateWinProbability(playerHand, board, 1, 0.01, 10000, false);
+
+        assertTrue(result.getProbability() > 0.95 && result.getProbability() < 0.99,
+                "Set vs random hands on flop should win approximately 97% of the time. Got: " + result.getProbability());
+        assertTrue(result.getErrorBound() <= 0.01, "Error bound should reach the target. Got: " + result.getErrorBound());
+        assertTrue(result.getIterations() < 10000, "Clear spots should need fewer than 10000 iterations. Got: " + result.getIterations());
+    }
+
+    @Test
+    public void testAdaptiveNeverReportsSampledResultAsExact() {
+        // A flopped royal flush wins every deal, but the result is still sampled
+        List<Card> playerHand = Arrays.asList(Card.fromShortString("AH"), Card.fromShortString("KH"));
+        List<Card> board = Arrays.asList(Card.fromShortString("QH"), Card.fromShortString("JH"), Card.fromShortString("TH"));
+
+        OddsResult result = OddsCalculator.estimateWinProbability(playerHand, board, 3, 0.01, 10000, false);
+
+        assertEquals(1.0, result.getProbability(), 0.0);
+        assertTrue(result.getErrorBound() > 0.0 && result.getErrorBound() <= 0.01,
+                "Sampled results should have an error bound. Got: " + result.getErrorBound());
+    }
+
+    @Test
+    public void testAdaptiveReportsExactResultWithoutError() {
+        List<Card> playerHand = Arrays.asList(Card.fromShortString("AH"), Card.fromShortString("3H"));
+        List<Card> board = Arrays.asList(Card.fromShortString("KH"), Card.fromShortString("QH"),
+                Card.fromShortString("JD"), Card.fromShortString("TC"), Card.fromShortString("9S"));
+
+        OddsResult result = OddsCalculator.estimateWinProbability(playerHand, board, 1, 0.01, 10000, true);
+
+        assertEquals((861 + 129 * 0.5) / 990, result.getProbability(), 1e-12);
+        assertEquals(0.0, result.getErrorBound(), 0.0);
+        assertEquals(990, result.getIterations());
+    }
+
     // Debugging method to help understand what's happening in the calculation
     private void runSimpleTestWithDebug(String testName, String[] playerHand, String[] board, int opponents) {
         System.out.println("\n==== DEBUG TEST: " + testName + " ====");
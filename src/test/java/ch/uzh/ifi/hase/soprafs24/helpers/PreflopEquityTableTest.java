@@ -0,0 +1,104 @@
+package ch.uzh.ifi.hase.soprafs24.helpers;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Card;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+public class PreflopEquityTableTest {
+
+    private static long mask(String... cards) {
+        return OddsCalculator.toMask(cards);
+    }
+
+    @Test
+    public void testTableIsShippedWithTheApplication() {
+        assertNotNull(PreflopEquityTable.get(), "The preflop table resource should be on the classpath");
+    }
+
+    @Test
+    public void testEveryStartingHandHasItsOwnIndex() {
+        Set<Integer> indices = new HashSet<>();
+        for (int first = 0; first < 52; first++) {
+            for (int second = first + 1; second < 52; second++) {
+                int index = PreflopEquityTable.handIndex(first, second);
+                assertTrue(index >= 0 && index < PreflopEquityTable.HANDS);
+                assertEquals(index, PreflopEquityTable.handIndex(second, first));
+                indices.add(index);
+            }
+        }
+        assertEquals(PreflopEquityTable.HANDS, indices.size());
+    }
+
+    @Test
+    public void testKnownEquities() {
+        // AA vs one random hand is 85.2%, 72o vs one random hand about 34.6%
+        OddsResult aces = PreflopEquityTable.lookup(mask("AS", "AC"), 0L, 1);
+        OddsResult sevenDeuce = PreflopEquityTable.lookup(mask("7H", "2D"), 0L, 1);
+
+        assertEquals(0.852, aces.getProbability(), 0.005);
+        assertEquals(0.346, sevenDeuce.getProbability(), 0.01);
+        assertTrue(aces.getErrorBound() > 0.0 && aces.getErrorBound() < 0.005);
+    }
+
+    @Test
+    public void testIsomorphicHandsShareAnEntry() {
+        OddsResult hearts = PreflopEquityTable.lookup(mask("AH", "KH"), 0L, 4);
+        OddsResult spades = PreflopEquityTable.lookup(mask("KS", "AS"), 0L, 4);
+        OddsResult offsuit = PreflopEquityTable.lookup(mask("AH", "KS"), 0L, 4);
+
+        assertEquals(hearts.getProbability(), spades.getProbability(), 0.0);
+        assertTrue(hearts.getProbability() > offsuit.getProbability(), "Suited AK should beat offsuit AK");
+    }
+
+    @Test
+    public void testEquityFallsWithMoreOpponents() {
+        long hand = mask("QH", "QD");
+        double previous = 1.0;
+        for (int opponents = 1; opponents <= PreflopEquityTable.MAX_OPPONENTS; opponents++) {
+            double equity = PreflopEquityTable.lookup(hand, 0L, opponents).getProbability();
+            assertTrue(equity < previous, "Equity should fall with " + opponents + " opponents. Got: " + equity);
+            previous = equity;
+        }
+    }
+
+    @Test
+    public void testOnlyPreflopSpotsAreLookedUp() {
+        assertNull(PreflopEquityTable.lookup(mask("AS", "AC"), mask("KD", "QC", "2H"), 1));
+        assertNull(PreflopEquityTable.lookup(mask("AS", "AC"), 0L, 0));
+        assertNull(PreflopEquityTable.lookup(mask("AS", "AC"), 0L, PreflopEquityTable.MAX_OPPONENTS + 1));
+    }
+
+    @Test
+    public void testCalculatorAnswersPreflopFromTable() {
+        List<Card> hand = Arrays.asList(Card.fromShortString("QH"), Card.fromShortString("QD"));
+
+        OddsResult result = OddsCalculator.estimateWinProbability(hand, Collections.emptyList(), 3, 0.01, 10000, false);
+
+        assertEquals(PreflopEquityTable.lookup(mask("QH", "QD"), 0L, 3).getProbability(), result.getProbability(), 0.0);
+        assertEquals(result.getProbability(), OddsCalculator.calculateWinProbability(hand, Collections.emptyList(), 3), 0.0);
+    }
+
+    @Test
+    public void testWriteAndReadRoundTrip() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        PreflopEquityTable table;
+        try {
+            table = PreflopEquityTable.compute(200, 7L, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        table.write(new DataOutputStream(bytes));
+        assertEquals(4 + 2 * PreflopEquityTable.HANDS * PreflopEquityTable.MAX_OPPONENTS, bytes.size());
+
+        PreflopEquityTable read = PreflopEquityTable.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        for (int index = 0; index < PreflopEquityTable.HANDS; index++) {
+            assertEquals(table.equity(index, 2), read.equity(index, 2), 0.0);
+        }
+    }
+}
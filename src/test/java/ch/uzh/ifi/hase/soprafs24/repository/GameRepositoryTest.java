@@ -5,14 +5,17 @@ import ch.uzh.ifi.hase.soprafs24.constant.Deck;
 import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.Player;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyGameDTO;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -191,8 +194,8 @@ class GameRepositoryTest {
         Game newGame = createTestGame(true);
         
         // Add community cards
-        Card card1 = new Card(Card.Suit.HEARTS, Card.Rank.ACE);
-        Card card2 = new Card(Card.Suit.SPADES, Card.Rank.KING);
+        Card card1 = Card.of(Card.Rank.ACE, Card.Suit.HEARTS);
+        Card card2 = Card.of(Card.Rank.KING, Card.Suit.SPADES);
         newGame.addCommunityCard(card1);
         newGame.addCommunityCard(card2);
         
@@ -305,4 +308,110 @@ class GameRepositoryTest {
         assertEquals(1, gameAfterRemoval.getPlayers().size());
         assertEquals(1, gameAfterRemoval.getNumberOfPlayers());
     }
+
+    @Test
+    void testFindTableStateWithPlayers() {
+        Game newGame = createTestGame(true);
+        newGame.addPlayer(new Player(1L, new ArrayList<>(List.of("AS", "KD")), newGame));
+        newGame.addPlayer(new Player(2L, new ArrayList<>(List.of("TC", "9H")), newGame));
+        entityManager.persist(newGame);
+        entityManager.flush();
+        entityManager.clear();
+
+        Game table = gameRepository.findTableStateById(newGame.getId());
+
+        // The players were fetched with the game, they are usable after the session is gone
+        entityManager.clear();
+        assertEquals(2, table.getPlayers().size());
+        assertEquals(List.of("AS", "KD"), table.getPlayers().get(0).getHand());
+        assertEquals(List.of("TC", "9H"), table.getPlayers().get(1).getHand());
+    }
+
+    @Test
+    void testFindTableHeader() {
+        Game newGame = createTestGame(false);
+        newGame.addPlayer(new Player(7L, new ArrayList<>(), newGame));
+        entityManager.persist(newGame);
+        entityManager.flush();
+
+        GameHeader header = gameRepository.findTableHeaderById(newGame.getId());
+
+        assertEquals(newGame.getId(), header.getId());
+        assertEquals(1L, header.getCreatorId());
+        assertFalse(header.getIsPublic());
+        assertEquals(GameStatus.WAITING, header.getGameStatus());
+        assertNull(gameRepository.findTableHeaderById(newGame.getId() + 1000));
+    }
+
+    @Test
+    void testFindLobbyPage() {
+        Game archived = createTestGame(true);
+        archived.setGameStatus(GameStatus.ARCHIVED);
+        Game privateGame = createTestGame(false);
+        Game lowBlinds = createTestGame(true);
+        lowBlinds.setBigBlind(2);
+        Game full = createTestGame(true);
+        full.setBigBlind(10);
+        full.setMaximalPlayers(1);
+        full.addPlayer(new Player(1L, new ArrayList<>(), full));
+        Game first = createTestGame(true);
+        first.setBigBlind(10);
+        Game second = createTestGame(true);
+        second.setBigBlind(20);
+        for (Game game : List.of(archived, privateGame, lowBlinds, full, first, second)) {
+            entityManager.persist(game);
+        }
+        entityManager.flush();
+
+        // Public, not archived, big blind between 10 and 50 and at least one open seat, one game per page
+        List<LobbyGameDTO> page = gameRepository.findLobbyPage(0L, 0, Integer.MAX_VALUE, 10, 50, 1, PageRequest.of(0, 1));
+        assertEquals(1, page.size());
+        assertEquals(first.getId(), page.get(0).getId());
+        assertEquals(10, page.get(0).getBigBlind());
+
+        page = gameRepository.findLobbyPage(page.get(0).getId(), 0, Integer.MAX_VALUE, 10, 50, 1, PageRequest.of(0, 1));
+        assertEquals(1, page.size());
+        assertEquals(second.getId(), page.get(0).getId());
+
+        page = gameRepository.findLobbyPage(page.get(0).getId(), 0, Integer.MAX_VALUE, 10, 50, 1, PageRequest.of(0, 1));
+        assertTrue(page.isEmpty());
+
+        // Status filter and seat count
+        page = gameRepository.findLobbyPageByStatus(0L, 0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, 0, GameStatus.WAITING,
+                PageRequest.of(0, 10));
+        assertEquals(List.of(lowBlinds.getId(), full.getId(), first.getId(), second.getId()),
+                page.stream().map(LobbyGameDTO::getId).collect(Collectors.toList()));
+        assertEquals(1, page.get(1).getNumberOfPlayers());
+        assertTrue(gameRepository.findLobbyPageByStatus(0L, 0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, 0,
+                GameStatus.PREFLOP, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void testFindLobbyPageFiltersBothBlindsAndAnyStatus() {
+        Game micro = createTestGame(true);
+        micro.setSmallBlind(1);
+        micro.setBigBlind(2);
+        Game straddled = createTestGame(true);
+        straddled.setSmallBlind(20);
+        straddled.setBigBlind(20);
+        Game regular = createTestGame(true);
+        regular.setSmallBlind(10);
+        regular.setBigBlind(20);
+        regular.setGameStatus(GameStatus.PREFLOP);
+        for (Game game : List.of(micro, straddled, regular)) {
+            entityManager.persist(game);
+        }
+        entityManager.flush();
+
+        // Without a status filter every status but ARCHIVED is listed
+        List<LobbyGameDTO> page = gameRepository.findLobbyPage(0L, 0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, 0,
+                PageRequest.of(0, 10));
+        assertEquals(List.of(micro.getId(), straddled.getId(), regular.getId()),
+                page.stream().map(LobbyGameDTO::getId).collect(Collectors.toList()));
+
+        // Same big blind, only one of them has a small blind up to 10
+        page = gameRepository.findLobbyPage(0L, 5, 10, 20, 20, 0, PageRequest.of(0, 10));
+        assertEquals(List.of(regular.getId()), page.stream().map(LobbyGameDTO::getId).collect(Collectors.toList()));
+        assertEquals(10, page.get(0).getSmallBlind());
+    }
 }
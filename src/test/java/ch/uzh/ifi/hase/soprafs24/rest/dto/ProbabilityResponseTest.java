@@ -70,4 +70,15 @@ public class ProbabilityResponseTest {
         assertEquals(Double.MAX_VALUE, response.getProbability(), 0.0001, 
             "Probability should handle maximum double value");
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testErrorBoundAndIterations() {
+        ProbabilityResponse response = new ProbabilityResponse();
+
+        response.setErrorBound(0.01);
+        response.setIterations(4000L);
+
+        assertEquals(0.01, response.getErrorBound(), 0.0001, "Error bound should match the set value.");
+        assertEquals(4000L, response.getIterations(), "Iterations should match the set value.");
+    }
+}
@@ -0,0 +1,150 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.helpers.OddsResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EquityPrecomputeServiceTest {
+
+    private static final List<String> FLOP = Arrays.asList("KD", "QC", "2H");
+    private static final List<String> TURN = Arrays.asList("KD", "QC", "2H", "5S");
+
+    // Waits long enough for the small tasks of these tests, also on a slow machine
+    private final EquityPrecomputeService service = new EquityPrecomputeService(1, 1, 5000, 2);
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void get_waitsForPrecomputedResult() {
+        OddsResult result = new OddsResult(0.8, 0.01, 2000);
+        service.submit(1L, 2L, FLOP, () -> result);
+
+        assertSame(result, service.get(1L, 2L, FLOP));
+    }
+
+    @Test
+    public void get_otherBoardOrPlayer_returnsNull() {
+        service.submit(1L, 2L, FLOP, () -> new OddsResult(0.8, 0.01, 2000));
+
+        assertNull(service.get(1L, 2L, TURN));
+        assertNull(service.get(1L, 3L, FLOP));
+        assertNull(service.get(4L, 2L, FLOP));
+    }
+
+    @Test
+    public void get_nextStreetReplacesResult() {
+        OddsResult turn = new OddsResult(0.9, 0.0, 44);
+        service.submit(1L, 2L, FLOP, () -> new OddsResult(0.8, 0.01, 2000));
+        service.submit(1L, 2L, TURN, () -> turn);
+
+        assertSame(turn, service.get(1L, 2L, TURN));
+        assertNull(service.get(1L, 2L, FLOP));
+    }
+
+    @Test
+    public void get_failedComputation_returnsNull() {
+        service.submit(1L, 2L, FLOP, () -> {
+            throw new IllegalArgumentException("Not enough cards left");
+        });
+
+        assertNull(service.get(1L, 2L, FLOP));
+    }
+
+    @Test
+    public void submit_fullQueue_isSkipped() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Occupies the only thread, the next task fills the queue of size one
+        service.submit(1L, 1L, FLOP, () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return new OddsResult(0.5, 0.01, 1000);
+        });
+        started.await();
+        service.submit(1L, 2L, FLOP, () -> new OddsResult(0.6, 0.01, 1000));
+        service.submit(1L, 3L, FLOP, () -> new OddsResult(0.7, 0.01, 1000));
+        release.countDown();
+
+        assertNotNull(service.get(1L, 2L, FLOP));
+        assertNull(service.get(1L, 3L, FLOP));
+    }
+
+    @Test
+    public void clearGame_forgetsResults() {
+        service.submit(1L, 2L, FLOP, () -> new OddsResult(0.8, 0.01, 2000));
+        service.clearGame(1L);
+
+        assertNull(service.get(1L, 2L, FLOP));
+    }
+
+    @Test
+    public void get_slowComputation_doesNotBlockTheRequest() throws InterruptedException {
+        EquityPrecomputeService impatient = new EquityPrecomputeService(1, 1, 10, 2);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            impatient.submit(1L, 2L, FLOP, () -> {
+                started.countDown();
+                awaitQuietly(release);
+                return new OddsResult(0.8, 0.01, 2000);
+            });
+            started.await();
+
+            // Still running, the request computes the spot itself instead of waiting
+            assertNull(impatient.get(1L, 2L, FLOP));
+        } finally {
+            release.countDown();
+            impatient.shutdown();
+        }
+    }
+
+    @Test
+    public void clearGame_interruptsRunningComputation() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        service.submit(1L, 2L, FLOP, () -> {
+            started.countDown();
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.onSpinWait();
+            }
+            interrupted.countDown();
+            return new OddsResult(0.8, 0.01, 2000);
+        });
+        started.await();
+
+        service.clearGame(1L);
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void submit_tooManyGames_dropsLeastRecentGame() throws InterruptedException {
+        service.submit(1L, 2L, FLOP, () -> new OddsResult(0.8, 0.01, 2000));
+        Thread.sleep(1);
+        service.submit(2L, 2L, FLOP, () -> new OddsResult(0.7, 0.01, 2000));
+        Thread.sleep(1);
+        service.submit(3L, 2L, FLOP, () -> new OddsResult(0.6, 0.01, 2000));
+
+        assertEquals(2, service.gameCount());
+        assertNull(service.get(1L, 2L, FLOP));
+        assertNotNull(service.get(3L, 2L, FLOP));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.Deck;
+import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
+import ch.uzh.ifi.hase.soprafs24.constant.PlayerAction;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.GameEvent;
+import ch.uzh.ifi.hase.soprafs24.entity.GameSnapshot;
+import ch.uzh.ifi.hase.soprafs24.entity.Player;
+import ch.uzh.ifi.hase.soprafs24.repository.GameEventRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.GameSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+public class GameEventServiceTest {
+
+    private final GameEventService gameEventService = new GameEventService();
+
+    private Game newGame() {
+        Game game = new Game();
+        game.setId(1L);
+        game.setStartCredit(1000L);
+        game.setPot(0L);
+        game.setCallAmount(0L);
+        game.setGameStatus(GameStatus.PREFLOP);
+        game.setSmallBlindIndex(2);
+        game.setCurrentPlayerIndex(0);
+        game.setLastRaisePlayerIndex(-1);
+        game.saveDeck(new Deck());
+        for (long userId = 1; userId <= 3; userId++) {
+            game.addPlayer(new Player(userId, new ArrayList<>(Arrays.asList("AS", "KS")), game));
+        }
+        return game;
+    }
+
+    // Moves chips like GameService does and records the action
+    private GameEvent act(Game game, PlayerAction action, long chips) {
+        Player player = game.getPlayers().get(game.getCurrentPlayerIndex());
+        player.setCredit(player.getCredit() - chips);
+        player.setCurrentBet(player.getCurrentBet() + chips);
+        player.setHasActed(true);
+        player.setLastAction(action);
+        if (action == PlayerAction.FOLD) {
+            player.setHasFolded(true);
+        }
+        if (action == PlayerAction.RAISE) {
+            game.setCallAmount(player.getCurrentBet());
+            game.setLastRaisePlayerIndex(game.getCurrentPlayerIndex());
+        }
+        GameEvent event = gameEventService.recordAction(game, player, action, chips);
+        if (!game.isBettingRoundComplete()) {
+            game.moveToNextPlayer();
+        }
+        return event;
+    }
+
+    private GameEvent dealFlop(Game game) {
+        game.collectBetsIntoPot();
+        List<String> flop = Arrays.asList(game.getRandomCard(), game.getRandomCard(), game.getRandomCard());
+        game.setCommunityCards(new ArrayList<>(flop));
+        game.setGameStatus(GameStatus.FLOP);
+        game.resetPlayerActions();
+        return gameEventService.recordDeal(game, flop);
+    }
+
+    private void assertSameTable(Game expected, Game actual) {
+        assertEquals(expected.getEventSequence(), actual.getEventSequence());
+        assertEquals(expected.getGameStatus(), actual.getGameStatus());
+        assertEquals(expected.getPot(), actual.getPot());
+        assertEquals(expected.getCallAmount(), actual.getCallAmount());
+        assertEquals(expected.getCurrentPlayerIndex(), actual.getCurrentPlayerIndex());
+        assertEquals(expected.getLastRaisePlayerIndex(), actual.getLastRaisePlayerIndex());
+        assertEquals(expected.getCommunityCards(), actual.getCommunityCards());
+        assertEquals(expected.getCardDeck(), actual.getCardDeck());
+        for (int i = 0; i < expected.getPlayers().size(); i++) {
+            Player expectedPlayer = expected.getPlayers().get(i);
+            Player actualPlayer = actual.getPlayers().get(i);
+            assertEquals(expectedPlayer.getCredit(), actualPlayer.getCredit());
+            assertEquals(expectedPlayer.getCurrentBet(), actualPlayer.getCurrentBet());
+            assertEquals(expectedPlayer.getHasFolded(), actualPlayer.getHasFolded());
+            assertEquals(expectedPlayer.getHasActed(), actualPlayer.getHasActed());
+            assertEquals(expectedPlayer.getLastAction(), actualPlayer.getLastAction());
+        }
+    }
+
+    @Test
+    public void testReplayingTheEventsRebuildsTheTable() {
+        Game played = newGame();
+        List<GameEvent> events = new ArrayList<>();
+        events.add(act(played, PlayerAction.RAISE, 20));
+        events.add(act(played, PlayerAction.CALL, 20));
+        events.add(act(played, PlayerAction.FOLD, 0));
+        events.add(dealFlop(played));
+        events.add(act(played, PlayerAction.CHECK, 0));
+
+        assertEquals(5, played.getEventSequence());
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), Arrays.asList(events.get(0).getSequence(),
+                events.get(1).getSequence(), events.get(2).getSequence(), events.get(3).getSequence(),
+                events.get(4).getSequence()));
+
+        // The stored game missed all of them
+        Game stored = newGame();
+        for (GameEvent event : events) {
+            GameEventService.apply(stored, event);
+        }
+
+        assertSameTable(played, stored);
+        assertEquals(40L, stored.getPot());
+        assertEquals(3, stored.getCommunityCards().size());
+    }
+
+    @Test
+    public void testEventsAreAppliedInOrderOnly() {
+        Game played = newGame();
+        act(played, PlayerAction.CALL, 0);
+        GameEvent second = act(played, PlayerAction.CALL, 0);
+
+        assertThrows(IllegalStateException.class, () -> GameEventService.apply(newGame(), second));
+    }
+
+    @Test
+    public void testDealOfOtherCardsIsRejected() {
+        Game played = newGame();
+        played.getPlayers().forEach(player -> player.setHasActed(true));
+        GameEvent deal = dealFlop(played);
+
+        Game stored = newGame();
+        stored.getRandomCard();
+
+        assertThrows(IllegalStateException.class, () -> GameEventService.apply(stored, deal));
+    }
+
+    @Test
+    public void testSnapshotRestoresTheTable() {
+        Game played = newGame();
+        act(played, PlayerAction.RAISE, 50);
+        act(played, PlayerAction.CALL, 50);
+        act(played, PlayerAction.CALL, 50);
+        dealFlop(played);
+        GameSnapshot snapshot = gameEventService.snapshot(played);
+
+        Game stored = newGame();
+        GameEventService.restore(stored, snapshot);
+
+        assertSameTable(played, stored);
+        assertEquals(Arrays.asList("AS", "KS"), stored.getPlayers().get(0).getHand());
+        assertEquals(150L, stored.getPlayers().get(0).getTotalBets() + stored.getPlayers().get(1).getTotalBets()
+                + stored.getPlayers().get(2).getTotalBets());
+    }
+
+    @Test
+    public void testPruneDeletesWhatTheStoredGameIncludes() {
+        GameEventRepository events = Mockito.mock(GameEventRepository.class);
+        GameSnapshotRepository snapshots = Mockito.mock(GameSnapshotRepository.class);
+        GameEventService service = new GameEventService(events, snapshots, 50);
+
+        service.prune(1L, 17L);
+        verify(events).deleteUpTo(1L, 17L);
+        verify(snapshots).deleteUpTo(1L, 17L);
+
+        service.deleteStream(1L);
+        verify(events).deleteAllOfGame(1L);
+        verify(snapshots).deleteAllOfGame(1L);
+    }
+
+    @Test
+    public void testReadingLeavesTheStoredGameUntouched() {
+        GameEventRepository events = Mockito.mock(GameEventRepository.class);
+        GameSnapshotRepository snapshots = Mockito.mock(GameSnapshotRepository.class);
+        GameEventService service = new GameEventService(events, snapshots, 50);
+        Game played = newGame();
+        GameEvent raise = act(played, PlayerAction.RAISE, 50);
+        Game stored = newGame();
+
+        assertSame(stored, service.replayForReading(stored), "An up to date game is read as it is");
+
+        given(events.existsByGameIdAndSequenceGreaterThan(1L, 0L)).willReturn(true);
+        given(events.findByGameIdAndSequenceGreaterThanOrderBySequenceAsc(1L, 0L)).willReturn(List.of(raise));
+        Game read = service.replayForReading(stored);
+
+        assertNotSame(stored, read);
+        assertEquals(1L, read.getEventSequence());
+        assertEquals(50L, read.getPlayers().get(0).getCurrentBet());
+        assertEquals(0L, stored.getEventSequence());
+        assertEquals(0L, stored.getPlayers().get(0).getCurrentBet());
+    }
+}
@@ -0,0 +1,90 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameLockRegistryTest {
+
+    @Test
+    public void testStripesArePowersOfTwo() {
+        assertEquals(256, new GameLockRegistry().stripeCount());
+        assertEquals(64, new GameLockRegistry(50).stripeCount());
+        assertEquals(64, new GameLockRegistry(64).stripeCount());
+    }
+
+    @Test
+    public void testSameGameSameLock() {
+        GameLockRegistry locks = new GameLockRegistry();
+
+        assertSame(locks.lockFor(42L), locks.lockFor(42L));
+        assertNotSame(locks.lockFor(1L), locks.lockFor(2L));
+    }
+
+    @Test
+    public void testLockIsReentrantAndReleased() {
+        GameLockRegistry locks = new GameLockRegistry();
+
+        try (GameLockRegistry.Held outer = locks.lock(1L)) {
+            try (GameLockRegistry.Held inner = locks.lock(1L)) {
+                assertEquals(2, locks.lockFor(1L).getHoldCount());
+            }
+            assertEquals(1, locks.lockFor(1L).getHoldCount());
+        }
+        assertFalse(locks.lockFor(1L).isLocked());
+    }
+
+    @Test
+    public void testOtherGamesAreNotBlocked() throws InterruptedException {
+        GameLockRegistry locks = new GameLockRegistry();
+        AtomicBoolean otherGameRan = new AtomicBoolean();
+        AtomicBoolean sameGameRan = new AtomicBoolean();
+        CountDownLatch otherDone = new CountDownLatch(1);
+
+        try (GameLockRegistry.Held held = locks.lock(1L)) {
+            Thread other = new Thread(() -> {
+                try (GameLockRegistry.Held h = locks.lock(2L)) {
+                    otherGameRan.set(true);
+                }
+                otherDone.countDown();
+            });
+            Thread same = new Thread(() -> {
+                try (GameLockRegistry.Held h = locks.lock(1L)) {
+                    sameGameRan.set(true);
+                }
+            });
+            other.start();
+            same.start();
+
+            assertTrue(otherDone.await(5, TimeUnit.SECONDS));
+            assertTrue(otherGameRan.get());
+            same.join(100);
+            assertFalse(sameGameRan.get());
+        }
+    }
+
+    @Test
+    public void testLockIsKeptUntilTheTransactionCompleted() {
+        GameLockRegistry locks = new GameLockRegistry();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            try (GameLockRegistry.Held held = locks.lock(1L)) {
+                assertTrue(locks.lockFor(1L).isHeldByCurrentThread());
+            }
+            assertTrue(locks.lockFor(1L).isHeldByCurrentThread());
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            assertFalse(locks.lockFor(1L).isLocked());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -82,7 +82,7 @@ public class GameServiceLeaveGameTest {
         mockGame.setPlayers(playerList);
 
         when(userRepository.findByToken(token)).thenReturn(mockUser);
-        when(gameRepository.findByid(gameId)).thenReturn(mockGame);
+        when(gameRepository.findTableStateById(gameId)).thenReturn(mockGame);
         when(gameRepository.save(mockGame)).thenReturn(mockGame);
         doNothing().when(authenticator).checkTokenValidity(token);
         doNothing().when(playerRepository).delete(mockPlayer);
@@ -117,7 +117,7 @@ public class GameServiceLeaveGameTest {
         mockGame.setPlayers(playerList);
 
         when(userRepository.findByToken(token)).thenReturn(mockUser);
-        when(gameRepository.findByid(gameId)).thenReturn(mockGame);
+        when(gameRepository.findTableStateById(gameId)).thenReturn(mockGame);
         doNothing().when(authenticator).checkTokenValidity(token);
 
         // Act + Assert
@@ -159,7 +159,7 @@ public class GameServiceLeaveGameTest {
 
         doNothing().when(authenticator).checkTokenValidity(token);
         when(userRepository.findByToken(token)).thenReturn(mockUser);
-        when(gameRepository.findByid(gameId)).thenReturn(archivedGame); // simulate archived game
+        when(gameRepository.findTableStateById(gameId)).thenReturn(archivedGame); // simulate archived game
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
             gameService.leaveGame(gameId, token)
@@ -189,7 +189,7 @@ public class GameServiceLeaveGameTest {
 
         doNothing().when(authenticator).checkTokenValidity(token);
         when(userRepository.findByToken(token)).thenReturn(mockUser);
-        when(gameRepository.findByid(gameId)).thenReturn(mockGame);
+        when(gameRepository.findTableStateById(gameId)).thenReturn(mockGame);
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
             gameService.leaveGame(gameId, token)
@@ -210,7 +210,7 @@ public class GameServiceLeaveGameTest {
 
         doNothing().when(authenticator).checkTokenValidity(token);
         when(userRepository.findByToken(token)).thenReturn(mockUser);
-        when(gameRepository.findByid(gameId)).thenReturn(null); // simulate game not found
+        when(gameRepository.findTableStateById(gameId)).thenReturn(null); // simulate game not found
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
             gameService.leaveGame(gameId, token)
@@ -64,7 +64,7 @@ public class GameServiceResultsTest {
         testGame.setPlayers(players);
         
         // Mock repository
-        when(gameRepository.findByid(1L)).thenReturn(testGame);
+        when(gameRepository.findTableStateById(1L)).thenReturn(testGame);
     }
 
     @Test
@@ -92,7 +92,7 @@ public class GameServiceResultsTest {
         
         // Verify that the game's winners list is properly set by checking the game directly
         // The winners should be stored in the database after calling determineWinners
-        Game updatedGame = gameRepository.findByid(1L);
+        Game updatedGame = gameRepository.findTableStateById(1L);
         List<Player> gameWinners = updatedGame.getWinners();
         assertEquals(1, gameWinners.size(), "Game should have exactly one winner stored");
         assertEquals(player1.getUserId(), gameWinners.get(0).getUserId(), "Game winner should be player 1");
@@ -7,15 +7,20 @@ import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.Player;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.repository.GameHeader;
 import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.PlayerRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyGameDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LobbyPageDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -32,6 +37,7 @@ import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -126,9 +132,9 @@ public class GameServiceTest {
         }
         
         // Setup mocks
-        when(gameRepository.findByid(1L)).thenReturn(game);
-        when(gameRepository.findByid(3L)).thenReturn(privateGame);
-        when(gameRepository.findByid(2L)).thenReturn(null);
+        when(gameRepository.findTableStateById(1L)).thenReturn(game);
+        when(gameRepository.findTableStateById(3L)).thenReturn(privateGame);
+        when(gameRepository.findTableStateById(2L)).thenReturn(null);
         when(userRepository.findAll()).thenReturn(Collections.singletonList(user));
         when(userRepository.findByToken(user.getToken())).thenReturn(user);
         when(userRepository.findByid(1L)).thenReturn(user);
@@ -395,7 +401,7 @@ public class GameServiceTest {
         freshGame.setPlayers(new ArrayList<>()); // Empty player list
         
         // Mock the repositories
-        when(gameRepository.findByid(1L)).thenReturn(freshGame);
+        when(gameRepository.findTableStateById(1L)).thenReturn(freshGame);
         when(userRepository.findByToken(user.getToken())).thenReturn(user);
         when(gameRepository.save(any(Game.class))).thenReturn(freshGame);
         
@@ -433,6 +439,7 @@ public class GameServiceTest {
 
         List<Game> games = new ArrayList<>();
         games.add(game);
+        when(gameRepository.findByIsPublicTrueAndGameStatusNot(GameStatus.ARCHIVED)).thenReturn(games);
         // when
         List<Game> publicGames = gameService.getAllPublicGames(user.getToken());
         
@@ -442,6 +449,46 @@ public class GameServiceTest {
         assertEquals(games, publicGames);
     }
 
+    @Test
+    void testQuickSeatWithoutOpenTable() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> gameService.quickSeat(user.getToken(), 5, 10));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        verify(gameRepository, never()).save(any(Game.class));
+    }
+
+    @Test
+    void testGetLobbyPageAppliesDefaultsAndReturnsCursor() {
+        List<LobbyGameDTO> page = Arrays.asList(
+                new LobbyGameDTO(4L, 1L, 5, 10, 1000L, 6, 2, GameStatus.WAITING),
+                new LobbyGameDTO(9L, 1L, 5, 10, 1000L, 6, 5, GameStatus.WAITING));
+        when(gameRepository.findLobbyPage(eq(0L), eq(0), eq(Integer.MAX_VALUE), eq(0), eq(Integer.MAX_VALUE), eq(0),
+                any(Pageable.class)))
+                .thenReturn(page);
+
+        LobbyPageDTO result = gameService.getLobbyPage(user.getToken(), null, 2, null, null, null, null, null, null);
+
+        assertEquals(page, result.getGames());
+        assertEquals(9L, result.getNextAfter());
+        assertEquals(1, result.getGames().get(1).getOpenSeats());
+    }
+
+    @Test
+    void testGetLobbyPageLastPageHasNoCursor() {
+        when(gameRepository.findLobbyPageByStatus(eq(9L), eq(5), eq(10), eq(10), eq(20), eq(1), eq(GameStatus.WAITING),
+                any(Pageable.class)))
+                .thenReturn(Collections.singletonList(new LobbyGameDTO(12L, 1L, 10, 20, 1000L, 6, 2, GameStatus.WAITING)));
+
+        LobbyPageDTO result = gameService.getLobbyPage(user.getToken(), 9L, 5000, 5, 10, 10, 20, 1, GameStatus.WAITING);
+
+        assertEquals(1, result.getGames().size());
+        assertNull(result.getNextAfter());
+        // Oversized pages are capped
+        verify(gameRepository).findLobbyPageByStatus(eq(9L), eq(5), eq(10), eq(10), eq(20), eq(1), eq(GameStatus.WAITING),
+                eq(PageRequest.of(0, GameService.MAX_LOBBY_PAGE_SIZE)));
+    }
+
     @Test
     void testgetAllPublicGamesInvalidToken(){
         // when
@@ -476,6 +523,66 @@ public class GameServiceTest {
         });
     }
 
+    @Test
+    void testGetGameHeaderDoesNotLoadTheTable() {
+        when(gameRepository.findTableHeaderById(3L)).thenReturn(new GameHeader(3L, 1L, false, GameStatus.RIVER));
+        when(playerRepository.existsByGame_IdAndUserId(3L, user.getId())).thenReturn(true);
+
+        GameHeader header = gameService.getGameHeader(3L, user.getToken());
+
+        assertEquals(1L, header.getCreatorId());
+        verify(gameRepository, never()).findTableStateById(any());
+    }
+
+    @Test
+    void testGetGameHeaderPrivateGameWithoutSeat() {
+        when(gameRepository.findTableHeaderById(3L)).thenReturn(new GameHeader(3L, 1L, false, GameStatus.RIVER));
+        when(playerRepository.existsByGame_IdAndUserId(3L, user.getId())).thenReturn(false);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> gameService.getGameHeader(3L, user.getToken()));
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
+    }
+
+    @Test
+    void testGetGameHeaderArchivedGame() {
+        when(gameRepository.findTableHeaderById(1L)).thenReturn(new GameHeader(1L, 1L, true, GameStatus.ARCHIVED));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> gameService.getGameHeader(1L, user.getToken()));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+
+    @Test
+    void testGameStateTagChangesWithTheState() {
+        when(gameRepository.findTableHeaderById(1L)).thenReturn(new GameHeader(1L, 1L, true, GameStatus.RIVER));
+        String before = gameService.getGameStateTag(1L);
+        assertTrue(gameService.isGameStateCurrent(1L, user.getToken(), before, before));
+
+        game.setCommunityCards(Arrays.asList("10S", "JS", "QS", "KS", "5H"));
+        players.get(0).setHand(Arrays.asList("AS", "2H"));
+        players.get(1).setHand(Arrays.asList("AH", "AD"));
+        players.get(2).setHand(Arrays.asList("2S", "2D"));
+        gameService.determineWinners(1L);
+
+        String after = gameService.getGameStateTag(1L);
+        assertNotEquals(before, after);
+        assertFalse(gameService.isGameStateCurrent(1L, user.getToken(), after, before));
+        // A current tag is answered from the header, the table is not loaded for it
+        assertTrue(gameService.isGameStateCurrent(1L, user.getToken(), after, after));
+    }
+
+    @Test
+    void testCurrentGameStateTagStillChecksAccess() {
+        when(gameRepository.findTableHeaderById(3L)).thenReturn(new GameHeader(3L, 1L, false, GameStatus.RIVER));
+        when(playerRepository.existsByGame_IdAndUserId(3L, user.getId())).thenReturn(false);
+        String tag = gameService.getGameStateTag(3L);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> gameService.isGameStateCurrent(3L, user.getToken(), tag, tag));
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
+    }
+
     
     @Test
     void testStartRound_GameNotFound() {
@@ -511,7 +618,7 @@ public class GameServiceTest {
         players.get(2).setCredit(750L);
 
         // Mock the repository to return the game
-        when(gameRepository.findByid(1L)).thenReturn(game);
+        when(gameRepository.findTableStateById(1L)).thenReturn(game);
         when(userRepository.findByToken("valid-token")).thenReturn(user);
         when(gameRepository.save(any(Game.class))).thenReturn(game);
         
@@ -545,7 +652,7 @@ public class GameServiceTest {
         
         // Mock the repository to return the same game instance
         when(gameRepository.save(any(Game.class))).thenReturn(testGame);
-        when(gameRepository.findByid(1L)).thenReturn(testGame);
+        when(gameRepository.findTableStateById(1L)).thenReturn(testGame);
         
         // First create the game (creator is not automatically added now)
         Game createdGame = gameService.createNewGame(testGame, user.getToken());
@@ -565,7 +672,7 @@ public class GameServiceTest {
         
         // Verify repository interactions
         verify(gameRepository, atLeastOnce()).save(any(Game.class));
-        verify(gameRepository, atLeastOnce()).findByid(1L);
+        verify(gameRepository, atLeastOnce()).findTableStateById(1L);
     }
 
     @Test
@@ -592,7 +699,7 @@ public class GameServiceTest {
         assertEquals(0, createdGame.getPlayers().size(), "Game should not have any players yet");
         
         // Now manually join the creator to the game
-        when(gameRepository.findByid(7L)).thenReturn(createdGame);
+        when(gameRepository.findTableStateById(7L)).thenReturn(createdGame);
         gameService.joinGame(7L, user.getToken(), null);
         
         // Verify creator has now joined as a player
@@ -764,7 +871,7 @@ public class GameServiceTest {
         startedGame.setStartCredit(1000L);
         startedGame.setGameStatus(GameStatus.PREFLOP); // Game has already started
         
-        when(gameRepository.findByid(5L)).thenReturn(startedGame);
+        when(gameRepository.findTableStateById(5L)).thenReturn(startedGame);
         when(userRepository.findByToken(user.getToken())).thenReturn(user);
         
         // Execute and verify
@@ -788,7 +895,7 @@ public class GameServiceTest {
         privateGame.setPassword("correct-password");
         privateGame.setGameStatus(GameStatus.READY);
         
-        when(gameRepository.findByid(3L)).thenReturn(privateGame);
+        when(gameRepository.findTableStateById(3L)).thenReturn(privateGame);
         when(userRepository.findByToken(user.getToken())).thenReturn(user);
         
         // Test with wrong password
@@ -819,7 +926,7 @@ public class GameServiceTest {
         privateGame.setGameStatus(GameStatus.READY);
         privateGame.setPlayers(new ArrayList<>());
         
-        when(gameRepository.findByid(3L)).thenReturn(privateGame);
+        when(gameRepository.findTableStateById(3L)).thenReturn(privateGame);
         when(userRepository.findByToken(user.getToken())).thenReturn(user);
         when(gameRepository.save(any(Game.class))).thenReturn(privateGame);
         
@@ -881,7 +988,7 @@ public class GameServiceTest {
         user2.setCreationDate(java.time.LocalDate.now());
         user2.setName("User Two");
         
-        when(gameRepository.findByid(2L)).thenReturn(anotherGame);
+        when(gameRepository.findTableStateById(2L)).thenReturn(anotherGame);
         when(userRepository.findByid(2L)).thenReturn(user2); // Mock a valid user
         
         // Attempt to delete the game
@@ -907,7 +1014,7 @@ public class GameServiceTest {
         players.add(player2);
         game.setPlayers(players);
 
-        when(gameRepository.findByid(game.getId())).thenReturn(game);
+        when(gameRepository.findTableStateById(game.getId())).thenReturn(game);
         when(userRepository.findByToken(user.getToken())).thenReturn(user);
 
         // Execute new round
@@ -919,7 +1026,7 @@ public class GameServiceTest {
 
     @Test
     public void testNewRoundInvalidToken() {
-        when(gameRepository.findByid(game.getId())).thenReturn(game);
+        when(gameRepository.findTableStateById(game.getId())).thenReturn(game);
         
         assertThrows(ResponseStatusException.class, () -> {
             gameService.startRound(game.getId(), "invalid token");
@@ -932,7 +1039,7 @@ public class GameServiceTest {
         otherUser.setId(2L);
         otherUser.setToken("other-token");
         
-        when(gameRepository.findByid(game.getId())).thenReturn(game);
+        when(gameRepository.findTableStateById(game.getId())).thenReturn(game);
         when(userRepository.findByToken("other-token")).thenReturn(otherUser);
 
         assertThrows(ResponseStatusException.class, () -> {
@@ -976,7 +1083,7 @@ public class GameServiceTest {
         // Explicitly mock authenticator for this specific token as a safeguard
         Mockito.doNothing().when(authenticator).checkTokenValidity(specificToken);
         when(userRepository.findByToken(specificToken)).thenReturn(joiningUser); // Still useful for other parts of joinGame
-        when(gameRepository.findByid(6L)).thenReturn(fullGame);
+        when(gameRepository.findTableStateById(6L)).thenReturn(fullGame);
         
         Exception exception = assertThrows(ResponseStatusException.class, () -> {
             gameService.joinGame(6L, joiningUser.getToken(), null);
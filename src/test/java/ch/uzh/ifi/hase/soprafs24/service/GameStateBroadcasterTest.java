@@ -0,0 +1,90 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameStateBroadcasterTest {
+
+    // Runs the sender tasks only when the test says so, like a busy sender thread
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private GameStateBroadcaster broadcaster(int bufferSize) {
+        return new GameStateBroadcaster(new ObjectMapper(), tasks::add, bufferSize, 1000);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+    @Test
+    public void testEveryWatcherOfTheGameGetsTheUpdate() {
+        GameStateBroadcaster broadcaster = broadcaster(4);
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        List<String> otherGame = new ArrayList<>();
+        broadcaster.register(1L, (name, json) -> first.add(name + ":" + json));
+        broadcaster.register(1L, (name, json) -> second.add(name + ":" + json));
+        broadcaster.register(2L, (name, json) -> otherGame.add(name + ":" + json));
+
+        broadcaster.publish(1L, "{\"pot\":10}");
+        broadcaster.publish(1L, "{\"pot\":20}");
+        runTasks();
+
+        assertEquals(List.of("state:{\"pot\":10}", "state:{\"pot\":20}"), first);
+        assertEquals(first, second);
+        assertTrue(otherGame.isEmpty());
+    }
+
+    @Test
+    public void testSlowWatcherSkipsToTheLatestState() {
+        GameStateBroadcaster broadcaster = broadcaster(3);
+        List<String> received = new ArrayList<>();
+        broadcaster.register(1L, (name, json) -> received.add(name + ":" + json));
+
+        for (int pot = 1; pot <= 10; pot++) {
+            broadcaster.publish(1L, "{\"pot\":" + pot + "}");
+        }
+        runTasks();
+
+        // The backlog overflowed, the watcher gets the latest state instead of every update
+        assertEquals(List.of("snapshot:{\"pot\":10}"), received);
+    }
+
+    @Test
+    public void testBrokenConnectionIsDropped() {
+        GameStateBroadcaster broadcaster = broadcaster(4);
+        broadcaster.register(1L, (name, json) -> {
+            throw new IOException("Broken pipe");
+        });
+        assertTrue(broadcaster.hasSubscribers(1L));
+
+        broadcaster.publish(1L, "{}");
+        runTasks();
+
+        assertFalse(broadcaster.hasSubscribers(1L));
+    }
+
+    @Test
+    public void testUnsubscribedWatcherGetsNothing() {
+        GameStateBroadcaster broadcaster = broadcaster(4);
+        List<String> received = new ArrayList<>();
+        GameStateBroadcaster.Subscriber subscriber = broadcaster.register(1L, (name, json) -> received.add(json));
+
+        broadcaster.unregister(1L, subscriber);
+        broadcaster.publish(1L, "{}");
+        runTasks();
+
+        assertTrue(received.isEmpty());
+        assertFalse(broadcaster.hasSubscribers(1L));
+    }
+}
@@ -0,0 +1,48 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameStateVersionsTest {
+
+    private final GameStateVersions versions = new GameStateVersions();
+
+    @Test
+    public void testVersionsCountPerGame() {
+        assertEquals(0L, versions.current(1L));
+        String untouched = versions.etag(2L);
+
+        versions.bump(1L);
+        versions.bump(1L);
+
+        assertEquals(2L, versions.current(1L));
+        assertEquals(untouched, versions.etag(2L));
+        assertNotEquals(versions.etag(1L), untouched);
+    }
+
+    @Test
+    public void testArchivedGameIsForgotten() {
+        versions.bump(1L);
+        versions.bump(2L);
+
+        versions.remove(1L);
+
+        assertEquals(1, versions.size());
+        assertEquals(0L, versions.current(1L));
+        assertEquals(1L, versions.current(2L));
+    }
+
+    @Test
+    public void testIfNoneMatchForms() {
+        String etag = versions.etag(1L);
+
+        assertTrue(GameStateVersions.matches(etag, etag));
+        assertTrue(GameStateVersions.matches(etag, "W/" + etag));
+        assertTrue(GameStateVersions.matches(etag, "\"other\", " + etag));
+        assertTrue(GameStateVersions.matches(etag, "*"));
+        assertFalse(GameStateVersions.matches(etag, "\"other\""));
+        assertFalse(GameStateVersions.matches(etag, null));
+        assertFalse(GameStateVersions.matches(null, etag));
+    }
+}
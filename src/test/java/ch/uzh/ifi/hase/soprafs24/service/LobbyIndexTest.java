@@ -0,0 +1,82 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LobbyIndexTest {
+
+    private final LobbyIndex lobbyIndex = new LobbyIndex();
+
+    private Game table(long id, int smallBlind, int bigBlind, int maximalPlayers, int seated) {
+        Game game = new Game();
+        game.setId(id);
+        game.setIsPublic(true);
+        game.setGameStatus(GameStatus.READY);
+        game.setSmallBlind(smallBlind);
+        game.setBigBlind(bigBlind);
+        game.setMaximalPlayers(maximalPlayers);
+        game.setNumberOfPlayers(seated);
+        return game;
+    }
+
+    @Test
+    public void testFullestTableWithTheStakesIsPicked() {
+        lobbyIndex.update(table(1L, 5, 10, 6, 1));
+        lobbyIndex.update(table(2L, 5, 10, 6, 4));
+        lobbyIndex.update(table(3L, 10, 20, 6, 5));
+
+        assertEquals(2L, lobbyIndex.findBestTable(5, 10));
+        assertEquals(2L, lobbyIndex.findBestTable(null, 10));
+        assertEquals(3L, lobbyIndex.findBestTable(10, 20));
+        assertEquals(3L, lobbyIndex.findBestTable(10, null));
+        // Without stakes the lowest ones
+        assertEquals(2L, lobbyIndex.findBestTable(null, null));
+        assertNull(lobbyIndex.findBestTable(5, 20));
+        assertNull(lobbyIndex.findBestTable(null, 50));
+    }
+
+    @Test
+    public void testTablesMoveAndLeaveTheIndex() {
+        Game game = table(1L, 5, 10, 2, 1);
+        lobbyIndex.update(game);
+        lobbyIndex.update(table(2L, 5, 10, 6, 0));
+        assertEquals(1L, lobbyIndex.findBestTable(5, 10));
+
+        // Full
+        game.setNumberOfPlayers(2);
+        lobbyIndex.update(game);
+        assertEquals(2L, lobbyIndex.findBestTable(5, 10));
+        assertEquals(1, lobbyIndex.size());
+
+        // A seat is free again, but the hand has started
+        game.setNumberOfPlayers(1);
+        game.setGameStatus(GameStatus.PREFLOP);
+        lobbyIndex.update(game);
+        assertEquals(2L, lobbyIndex.findBestTable(5, 10));
+
+        // Back between hands
+        game.setGameStatus(GameStatus.READY);
+        lobbyIndex.update(game);
+        assertEquals(1L, lobbyIndex.findBestTable(5, 10));
+
+        lobbyIndex.remove(1L);
+        assertEquals(2L, lobbyIndex.findBestTable(5, 10));
+    }
+
+    @Test
+    public void testPrivateAndArchivedTablesAreNotIndexed() {
+        Game privateGame = table(1L, 5, 10, 6, 1);
+        privateGame.setIsPublic(false);
+        Game archived = table(2L, 5, 10, 6, 1);
+        archived.setGameStatus(GameStatus.ARCHIVED);
+
+        lobbyIndex.update(privateGame);
+        lobbyIndex.update(archived);
+
+        assertEquals(0, lobbyIndex.size());
+        assertNull(lobbyIndex.findBestTable(null, null));
+    }
+}
@@ -0,0 +1,73 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptimisticRetryTest {
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+
+    @Test
+    public void testConflictIsRetried() {
+        OptimisticRetry retry = new OptimisticRetry();
+
+        String result = retry.run(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockException("stale game");
+            }
+            return "done";
+        }, retries::incrementAndGet);
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, retries.get());
+    }
+
+    @Test
+    public void testTranslatedConflictIsRetried() {
+        OptimisticRetry retry = new OptimisticRetry();
+
+        String result = retry.run(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                // Spring wraps the JPA exception when the transaction is committed
+                throw new OptimisticLockingFailureException("stale player");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testOtherErrorsAreNotRetried() {
+        OptimisticRetry retry = new OptimisticRetry();
+
+        assertThrows(ResponseStatusException.class, () -> retry.run(() -> {
+            attempts.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "It's not your turn");
+        }));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testRetryBudget() {
+        OptimisticRetry retry = new OptimisticRetry();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> retry.run(() -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockException("stale game");
+        }));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        assertEquals(OptimisticRetry.DEFAULT_MAX_ATTEMPTS, attempts.get());
+    }
+}
@@ -88,7 +88,7 @@ public class PlayerActionServiceTest {
         testGame.setStartBlinds();
 
         // Configure mocks
-        when(gameRepository.findByid(1L)).thenReturn(testGame);
+        when(gameRepository.findTableStateById(1L)).thenReturn(testGame);
         when(gameRepository.save(any(Game.class))).thenReturn(testGame);
         when(playerRepository.save(any(Player.class))).thenAnswer(i -> i.getArguments()[0]);
         when(playerRepository.findByid(1L)).thenReturn(player1);
@@ -118,6 +118,25 @@ public class PlayerActionServiceTest {
         assertEquals((result.getBigBlindIndex() + 1) % result.getPlayers().size(), result.getCurrentPlayerIndex());
     }
 
+    @Test
+    public void testStartBettingRoundDealsInMemoryAndFlushesOnce() {
+        Game result = gameService.startBettingRound(1L);
+
+        List<String> dealt = new ArrayList<>();
+        for (Player player : result.getPlayers()) {
+            assertEquals(2, player.getHand().size());
+            dealt.addAll(player.getHand());
+        }
+        assertEquals(6, dealt.stream().distinct().count());
+        assertEquals(52 - 6, result.getCardDeck().size());
+
+        // The players are cascaded from the game instead of being saved one by one
+        verify(playerRepository, never()).save(any(Player.class));
+        verify(playerRepository, never()).flush();
+        verify(gameRepository, times(1)).save(testGame);
+        verify(gameRepository, times(1)).flush();
+    }
+
     @Test
     public void testPlayerActionCheck() {
         // Setup game in PREFLOP state
@@ -420,35 +439,36 @@ public class PlayerActionServiceTest {
         Game result = gameService.processPlayerAction(1L, 1L, PlayerAction.CHECK, 0L);
         assertEquals(GameStatus.FLOP, result.getGameStatus());
         assertEquals(3, result.getCommunityCards().size());
+        // The result is a copy, the next street is set up on the table itself
 
         // FLOP -> TURN
-        for (Player p : result.getPlayers()) {
+        for (Player p : testGame.getPlayers()) {
             p.setHasActed(true);
         }
         player1.setHasActed(false);
-        result.setCurrentPlayerIndex(0);
+        testGame.setCurrentPlayerIndex(0);
 
         result = gameService.processPlayerAction(1L, 1L, PlayerAction.CHECK, 0L);
         assertEquals(GameStatus.TURN, result.getGameStatus());
         assertEquals(4, result.getCommunityCards().size());
 
         // TURN -> RIVER
-        for (Player p : result.getPlayers()) {
+        for (Player p : testGame.getPlayers()) {
             p.setHasActed(true);
         }
         player1.setHasActed(false);
-        result.setCurrentPlayerIndex(0);
+        testGame.setCurrentPlayerIndex(0);
 
         result = gameService.processPlayerAction(1L, 1L, PlayerAction.CHECK, 0L);
         assertEquals(GameStatus.RIVER, result.getGameStatus());
         assertEquals(5, result.getCommunityCards().size());
 
         // RIVER -> GAMEOVER
-        for (Player p : result.getPlayers()) {
+        for (Player p : testGame.getPlayers()) {
             p.setHasActed(true);
         }
         player1.setHasActed(false);
-        result.setCurrentPlayerIndex(0);
+        testGame.setCurrentPlayerIndex(0);
 
         result = gameService.processPlayerAction(1L, 1L, PlayerAction.CHECK, 0L);
         assertEquals(GameStatus.GAMEOVER, result.getGameStatus());
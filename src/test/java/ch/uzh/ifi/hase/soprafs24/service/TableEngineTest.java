@@ -0,0 +1,193 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TableEngineTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Game> written = new ArrayList<>();
+
+    private TableEngine engine() {
+        return new TableEngine(written::add, 0, TimeUnit.SECONDS.toNanos(60), now::get);
+    }
+
+    private Game load(Long gameId) {
+        loads.incrementAndGet();
+        Game game = new Game();
+        game.setId(gameId);
+        game.setPot(0L);
+        return game;
+    }
+
+    @Test
+    public void testActionsStayInMemoryUntilFlushed() {
+        TableEngine engine = engine();
+
+        engine.update(1L, this::load, game -> { game.setPot(game.getPot() + 10); return game; });
+        engine.update(1L, this::load, game -> { game.setPot(game.getPot() + 10); return game; });
+
+        assertEquals(1, loads.get());
+        assertTrue(written.isEmpty());
+        assertEquals(20L, engine.get(1L).getPot());
+
+        // Both actions are written at once, a clean table is not written again
+        engine.flushAll();
+        engine.flush(1L);
+        assertEquals(1, written.size());
+        assertEquals(20L, written.get(0).getPot());
+    }
+
+    @Test
+    public void testReleaseWritesAndDropsTheTable() {
+        TableEngine engine = engine();
+        engine.update(1L, this::load, game -> game);
+
+        engine.release(1L);
+
+        assertEquals(1, written.size());
+        assertFalse(engine.isResident(1L));
+        assertNull(engine.get(1L));
+
+        engine.update(1L, this::load, game -> game);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testFailedCommandDropsTheTable() {
+        TableEngine engine = engine();
+        engine.update(1L, this::load, game -> { game.setPot(10L); return game; });
+
+        assertThrows(IllegalArgumentException.class, () -> engine.update(1L, this::load, game -> {
+            game.setPot(5L);
+            throw new IllegalArgumentException();
+        }));
+
+        // The half-applied command is never written, the next command starts from the stored state
+        assertFalse(engine.isResident(1L));
+        engine.flushAll();
+        assertTrue(written.isEmpty());
+        engine.update(1L, this::load, game -> game);
+        assertEquals(2, loads.get());
+        assertEquals(0L, engine.get(1L).getPot());
+    }
+
+    @Test
+    public void testResidentStateIsHandedOutAsACopy() {
+        TableEngine engine = engine();
+        engine.update(1L, this::load, game -> { game.setPot(10L); return game; });
+
+        Game copy = engine.get(1L);
+        copy.setPot(99L);
+        engine.update(1L, this::load, game -> { game.setPot(game.getPot() + 10); return game; });
+
+        assertEquals(20L, engine.get(1L).getPot());
+        assertEquals(99L, copy.getPot());
+    }
+
+    @Test
+    public void testIdleTablesAreDropped() {
+        TableEngine engine = engine();
+        engine.update(1L, this::load, game -> game);
+        engine.update(2L, this::load, game -> game);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        engine.update(2L, this::load, game -> game);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(40));
+        engine.flushAll();
+
+        assertFalse(engine.isResident(1L));
+        assertTrue(engine.isResident(2L));
+        assertEquals(2, written.size());
+    }
+
+    @Test
+    public void testFailedWriteIsRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        TableEngine engine = new TableEngine(game -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("database down");
+            }
+        }, 0, TimeUnit.SECONDS.toNanos(60), now::get);
+        engine.update(1L, this::load, game -> game);
+
+        engine.flushAll();
+        engine.flushAll();
+        engine.flushAll();
+
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testFlusherSkipsTablesWhoseGameIsLocked() throws InterruptedException {
+        GameLockRegistry locks = new GameLockRegistry();
+        TableEngine engine = new TableEngine(written::add, 0, TimeUnit.SECONDS.toNanos(60), now::get, locks);
+        engine.update(1L, this::load, game -> game);
+
+        // A command of the game is running, or its transaction has not completed yet
+        try (GameLockRegistry.Held held = locks.lock(1L)) {
+            Thread flusher = new Thread(engine::flushAll);
+            flusher.start();
+            flusher.join();
+            assertTrue(written.isEmpty());
+        }
+
+        engine.flushAll();
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    public void testRolledBackCommandDropsTheTable() {
+        TableEngine engine = engine();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            engine.update(1L, this::load, game -> { game.setPot(5L); return game; });
+            assertTrue(engine.isResident(1L));
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(engine.isResident(1L));
+        engine.flushAll();
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    public void testRolledBackReleaseKeepsTheTable() {
+        TableEngine engine = engine();
+        engine.update(1L, this::load, game -> { game.setPot(5L); return game; });
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            engine.release(1L);
+            assertFalse(engine.isResident(1L));
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // The write was rolled back, the table is resident again and still has to be written
+        assertTrue(engine.isResident(1L));
+        assertEquals(5L, engine.get(1L).getPot());
+        written.clear();
+        engine.flushAll();
+        assertEquals(1, written.size());
+    }
+}